@@ -0,0 +1,131 @@
+package org.example.Service;
+
+import org.example.Dto.UserDto;
+import org.example.Entity.User;
+import org.example.repository.UserRepository;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Путь чтения сущность + convertToDto против проекции прямо в UserDto
+ * (те же JPQL, что в {@link UserRepository#findDtoById} и {@link UserRepository#findAllAsDto}).
+ * Интересна прежде всего аллокация на операцию: запускать с профилировщиком gc,
+ * например {@code java -jar benchmarks.jar UserReadPath -prof gc}, и смотреть gc.alloc.rate.norm.
+ * БД — H2 в памяти, кэш второго уровня выключен, чтобы оба пути шли в базу.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserReadPathBenchmark {
+
+    @Param({"1000"})
+    public int users;
+
+    private SessionFactory sessionFactory;
+    private UserServiceImpl userService;
+    private String findDtoByIdQuery;
+    private String findAllAsDtoQuery;
+    private int id;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                // columnDefinition = "timestamptz" в User: в H2 такого типа нет, объявляем его доменом
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+                        + "INIT=CREATE DOMAIN IF NOT EXISTS timestamptz AS TIMESTAMP WITH TIME ZONE")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                // import.sql из HibernateHW создаёт индекс по выражению, которого H2 не поддерживает
+                .setProperty("hibernate.hbm2ddl.import_files", "")
+                .setProperty("hibernate.cache.use_second_level_cache", "false")
+                .setProperty("hibernate.jdbc.batch_size", "500")
+                .buildSessionFactory();
+        userService = new UserServiceImpl(null, null, null, null, null);
+        findDtoByIdQuery = UserRepository.class.getMethod("findDtoById", int.class).getAnnotation(Query.class).value();
+        findAllAsDtoQuery = UserRepository.class.getMethod("findAllAsDto").getAnnotation(Query.class).value();
+
+        Instant createdAt = Instant.parse("2024-01-01T00:00:00Z");
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (int i = 0; i < users; i++) {
+                session.persist(new User("User " + i, 20 + i % 50, "user" + i + "@example.com", createdAt));
+            }
+            tx.commit();
+            id = session.createQuery("select min(u.userId) from User u", Integer.class).getSingleResult();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    // Как @Transactional(readOnly = true) в Spring: FlushMode.MANUAL и read-only сессия
+    private Session openReadOnlySession() {
+        Session session = sessionFactory.openSession();
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+        return session;
+    }
+
+    @Benchmark
+    public UserDto findByIdEntity() {
+        try (Session session = openReadOnlySession()) {
+            Transaction tx = session.beginTransaction();
+            UserDto user = userService.convertToDto(session.find(User.class, id));
+            tx.commit();
+            return user;
+        }
+    }
+
+    @Benchmark
+    public UserDto findByIdProjection() {
+        try (Session session = openReadOnlySession()) {
+            Transaction tx = session.beginTransaction();
+            UserDto user = session.createQuery(findDtoByIdQuery, UserDto.class)
+                    .setParameter("id", id)
+                    .getSingleResult();
+            tx.commit();
+            return user;
+        }
+    }
+
+    @Benchmark
+    public List<UserDto> findAllEntity() {
+        try (Session session = openReadOnlySession()) {
+            Transaction tx = session.beginTransaction();
+            List<User> entities = session.createQuery("from User u order by u.userId", User.class).getResultList();
+            List<UserDto> result = new ArrayList<>(entities.size());
+            for (User user : entities) {
+                result.add(userService.convertToDto(user));
+            }
+            tx.commit();
+            return result;
+        }
+    }
+
+    @Benchmark
+    public List<UserDto> findAllProjection() {
+        try (Session session = openReadOnlySession()) {
+            Transaction tx = session.beginTransaction();
+            List<UserDto> result = session.createQuery(findAllAsDtoQuery, UserDto.class).getResultList();
+            tx.commit();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.Service;
+
+import org.example.Dto.UserDto;
+import org.example.Entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути UserServiceImpl без БД: проверка email и маппинг сущности в DTO.
+ * Лежит в пакете org.example.Service, чтобы видеть пакетный convertToDto.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@(.+)$";
+
+    private UserServiceImpl userService;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        userService = new UserServiceImpl(null, null, null, null, null);
+        user = new User("Benchmark User", 30, "bench@example.com", Instant.parse("2024-01-01T00:00:00Z"));
+        user.setUserId(42);
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmailState {
+        @Param({"user.name+tag@example.com", "not-an-email"})
+        public String email;
+    }
+
+    @Benchmark
+    public boolean validateEmail(EmailState state) {
+        return userService.validateEmail(state.email);
+    }
+
+    // Прежняя реализация через String.matches — точка отсчёта для validateEmail
+    @Benchmark
+    public boolean validateEmailStringMatches(EmailState state) {
+        return state.email.matches(EMAIL_REGEX);
+    }
+
+    @Benchmark
+    public UserDto convertToDto() {
+        return userService.convertToDto(user);
+    }
+}
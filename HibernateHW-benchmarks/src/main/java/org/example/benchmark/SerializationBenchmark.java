@@ -0,0 +1,86 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.example.Dto.UserDto;
+import org.example.event.UserCreateEvent;
+import org.example.event.UserEventSerializer;
+import org.example.kafkaConfig.KafkaConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов REST (список UserDto) и событий Kafka: прежний JsonSerializer против UserEventSerializer.
+ * Размер UserCreateEvent постоянен и проверяется в UserEventSerializerTest: 78 байт JSON (значение + заголовок типа)
+ * против 22 байт двоичного формата.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private JsonSerializer<UserCreateEvent> eventSerializer;
+    private UserEventSerializer binaryEventSerializer;
+    private UserCreateEvent event;
+
+    @State(Scope.Benchmark)
+    public static class UserListState {
+        @Param({"10", "100", "1000"})
+        public int listSize;
+
+        private ObjectWriter userListWriter;
+        private List<UserDto> users;
+
+        @Setup
+        public void setUp() {
+            // Те же настройки Jackson, что Spring Boot применяет к ObjectMapper приложения
+            ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+            userListWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                    .constructCollectionType(List.class, UserDto.class));
+
+            users = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) {
+                users.add(new UserDto(i, "User " + i, 20 + i % 60, "user" + i + "@example.com",
+                        Instant.parse("2024-01-01T00:00:00Z")));
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        eventSerializer = new JsonSerializer<>();
+        binaryEventSerializer = new UserEventSerializer();
+        event = new UserCreateEvent(42, "bench@example.com");
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventSerializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeUserList(UserListState state) throws Exception {
+        return state.userListWriter.writeValueAsBytes(state.users);
+    }
+
+    // С заголовками типа, как при отправке через KafkaTemplate
+    @Benchmark
+    public byte[] serializeUserCreateEvent() {
+        return eventSerializer.serialize(KafkaConfig.USER_CREATED_TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public byte[] serializeUserCreateEventBinary() {
+        return binaryEventSerializer.serialize(KafkaConfig.USER_CREATED_TOPIC, event);
+    }
+}
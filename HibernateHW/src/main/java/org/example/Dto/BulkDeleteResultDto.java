@@ -0,0 +1,31 @@
+package org.example.Dto;
+
+import java.util.List;
+
+public class BulkDeleteResultDto {
+    private List<Integer> deleted;
+    private List<Integer> notFound;
+
+    public BulkDeleteResultDto(List<Integer> deleted, List<Integer> notFound) {
+        this.deleted = deleted;
+        this.notFound = notFound;
+    }
+
+    public BulkDeleteResultDto() {}
+
+    public List<Integer> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Integer> deleted) {
+        this.deleted = deleted;
+    }
+
+    public List<Integer> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Integer> notFound) {
+        this.notFound = notFound;
+    }
+}
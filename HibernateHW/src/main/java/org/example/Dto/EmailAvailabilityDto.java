@@ -0,0 +1,29 @@
+package org.example.Dto;
+
+public class EmailAvailabilityDto {
+    private String email;
+    private boolean available;
+
+    public EmailAvailabilityDto(String email, boolean available) {
+        this.email = email;
+        this.available = available;
+    }
+
+    public EmailAvailabilityDto() {}
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.Dto;
+
+import org.hibernate.stat.Statistics;
+
+public class HibernateStatsDto {
+    private boolean statisticsEnabled;
+    private long secondLevelCacheHitCount;
+    private long secondLevelCacheMissCount;
+    private long secondLevelCachePutCount;
+    private double secondLevelCacheHitRatio;
+    private long entityLoadCount;
+    private long entityFetchCount;
+    private long queryExecutionCount;
+    private long prepareStatementCount;
+
+    public static HibernateStatsDto from(Statistics statistics) {
+        HibernateStatsDto dto = new HibernateStatsDto();
+        dto.statisticsEnabled = statistics.isStatisticsEnabled();
+        dto.secondLevelCacheHitCount = statistics.getSecondLevelCacheHitCount();
+        dto.secondLevelCacheMissCount = statistics.getSecondLevelCacheMissCount();
+        dto.secondLevelCachePutCount = statistics.getSecondLevelCachePutCount();
+        long lookups = dto.secondLevelCacheHitCount + dto.secondLevelCacheMissCount;
+        dto.secondLevelCacheHitRatio = lookups == 0 ? 0.0 : (double) dto.secondLevelCacheHitCount / lookups;
+        dto.entityLoadCount = statistics.getEntityLoadCount();
+        dto.entityFetchCount = statistics.getEntityFetchCount();
+        dto.queryExecutionCount = statistics.getQueryExecutionCount();
+        dto.prepareStatementCount = statistics.getPrepareStatementCount();
+        return dto;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public long getSecondLevelCacheHitCount() {
+        return secondLevelCacheHitCount;
+    }
+
+    public long getSecondLevelCacheMissCount() {
+        return secondLevelCacheMissCount;
+    }
+
+    public long getSecondLevelCachePutCount() {
+        return secondLevelCachePutCount;
+    }
+
+    public double getSecondLevelCacheHitRatio() {
+        return secondLevelCacheHitRatio;
+    }
+
+    public long getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    public long getEntityFetchCount() {
+        return entityFetchCount;
+    }
+
+    public long getQueryExecutionCount() {
+        return queryExecutionCount;
+    }
+
+    public long getPrepareStatementCount() {
+        return prepareStatementCount;
+    }
+}
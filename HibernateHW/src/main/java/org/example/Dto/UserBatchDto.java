@@ -0,0 +1,31 @@
+package org.example.Dto;
+
+import java.util.List;
+
+public class UserBatchDto {
+    private List<UserDto> users;
+    private List<Integer> notFound;
+
+    public UserBatchDto(List<UserDto> users, List<Integer> notFound) {
+        this.users = users;
+        this.notFound = notFound;
+    }
+
+    public UserBatchDto() {}
+
+    public List<UserDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserDto> users) {
+        this.users = users;
+    }
+
+    public List<Integer> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Integer> notFound) {
+        this.notFound = notFound;
+    }
+}
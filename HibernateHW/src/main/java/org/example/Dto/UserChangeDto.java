@@ -0,0 +1,79 @@
+package org.example.Dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Уведомление об изменении пользователя для подписчиков GET /users/changes.
+ * Для удаления user не заполняется.
+ * Пакетные операции шлют одно уведомление на весь вызов: вместо userId/user заполняются userIds
+ * (и users для создания), чтобы тысяча строк не превращалась в тысячу кадров в буфере подписчика.
+ */
+public class UserChangeDto {
+
+    public enum Type {CREATED, UPDATED, DELETED}
+
+    private Type type;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer userId;
+    private UserDto user;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> userIds;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<UserDto> users;
+
+    public UserChangeDto(Type type, int userId, UserDto user) {
+        this.type = type;
+        this.userId = userId;
+        this.user = user;
+    }
+
+    public UserChangeDto(Type type, List<Integer> userIds, List<UserDto> users) {
+        this.type = type;
+        this.userIds = userIds;
+        this.users = users;
+    }
+
+    public UserChangeDto() {}
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public UserDto getUser() {
+        return user;
+    }
+
+    public void setUser(UserDto user) {
+        this.user = user;
+    }
+
+    public List<Integer> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Integer> userIds) {
+        this.userIds = userIds;
+    }
+
+    public List<UserDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserDto> users) {
+        this.users = users;
+    }
+}
@@ -1,13 +1,22 @@
 package org.example.Dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.Instant;
+
 public class UserDto {
     private int id;
     private String name;
     private int age;
     private String email;
-    private String createdAt;
+    // В API прежний формат "yyyy-MM-dd HH:mm:ss"; строка форматируется Jackson при записи ответа.
+    // Смещения в строке нет, поэтому зона зафиксирована в UTC и не зависит от зоны сервера
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss", timezone = "UTC")
+    private Instant createdAt;
+    // Версия строки для If-Match в PATCH /users/{id}
+    private Long version;
 
-    public UserDto(int id, String name, int age, String email, String createdAt) {
+    public UserDto(int id, String name, int age, String email, Instant createdAt) {
         this.id = id;
         this.name = name;
         this.age = age;
@@ -15,6 +24,11 @@ public class UserDto {
         this.createdAt = createdAt;
     }
 
+    public UserDto(int id, String name, int age, String email, Instant createdAt, Long version) {
+        this(id, name, age, email, createdAt);
+        this.version = version;
+    }
+
     public UserDto() {}
 
     public int getId() {
@@ -49,11 +63,19 @@ public class UserDto {
         this.email = email;
     }
 
-    public String getCreatedAt() {
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getCreatedAt() {
         return createdAt;
     }
 
-    public void setCreatedAt(String createdAt) {
+    public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
 
@@ -0,0 +1,31 @@
+package org.example.Dto;
+
+import java.util.List;
+
+public class UserPageDto {
+    private List<UserDto> items;
+    private String nextCursor;
+
+    public UserPageDto(List<UserDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public UserPageDto() {}
+
+    public List<UserDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UserDto> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
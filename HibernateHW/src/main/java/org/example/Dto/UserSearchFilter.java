@@ -0,0 +1,66 @@
+package org.example.Dto;
+
+import java.time.Instant;
+
+public class UserSearchFilter {
+    private String name;
+    private Integer minAge;
+    private Integer maxAge;
+    // Полуинтервал [createdFrom, createdTo)
+    private Instant createdFrom;
+    private Instant createdTo;
+
+    public UserSearchFilter(String name, Integer minAge, Integer maxAge) {
+        this.name = name;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public UserSearchFilter(String name, Integer minAge, Integer maxAge, Instant createdFrom, Instant createdTo) {
+        this(name, minAge, maxAge);
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+    }
+
+    public UserSearchFilter() {}
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public Instant getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(Instant createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public Instant getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(Instant createdTo) {
+        this.createdTo = createdTo;
+    }
+}
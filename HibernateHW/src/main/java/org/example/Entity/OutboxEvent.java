@@ -0,0 +1,70 @@
+package org.example.Entity;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "user_outbox")
+public class OutboxEvent {
+    // Релей отправляет записи в порядке id, поэтому id выдаются по одному, без пулов на инстанс
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_outbox_seq")
+    @SequenceGenerator(name = "user_outbox_seq", sequenceName = "user_outbox_seq", allocationSize = 1)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "event_key", nullable = false)
+    private String eventKey;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String topic, String eventKey, String eventType, String payload) {
+        this.topic = topic;
+        this.eventKey = eventKey;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OutboxEvent{id=%d, topic='%s', key='%s', type='%s'}",
+                id, topic, eventKey, eventType);
+    }
+}
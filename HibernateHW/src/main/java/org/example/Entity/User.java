@@ -1,31 +1,50 @@
 package org.example.Entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.Instant;
+import java.util.Locale;
 
 @Entity
-@Table(name="users")
+@Table(name="users", indexes = @Index(name = "idx_users_created_at", columnList = "user_created_at"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+// UPDATE только по изменённым колонкам, а не по всем
+@DynamicUpdate
 public class User implements Serializable {
+    // Последовательность с пулом id: в отличие от IDENTITY не отключает JDBC-батчинг вставок
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(name = "user_id")
     private Integer userId; // Изменено с int на Integer
 
     @Column(name = "user_name", nullable = false)
     private String userName;
 
-    @Column(name = "user_email", nullable = false, unique = true)
+    // Уникальность email без учёта регистра - только индекс idx_users_email_lower из import.sql
+    @Column(name = "user_email", nullable = false)
     private String userEmail;
 
     @Column(name = "user_age", nullable = false)
     private Integer userAge; // Изменено с int на Integer
 
-    @Column(name = "user_created_at", nullable = false)
-    private String userCreatedAt;
+    // timestamptz вместо строки: 8 байт на строку таблицы и диапазонные запросы по индексу
+    @Column(name = "user_created_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant userCreatedAt;
+
+    // Оптимистическая блокировка: UPDATE ... WHERE user_version = ? вместо блокировки строки на чтение
+    @Version
+    @Column(name = "user_version", nullable = false)
+    private Long version;
 
     public User() {}
 
-    public User(String userName, Integer userAge, String userEmail, String userCreatedAt) {
+    public User(String userName, Integer userAge, String userEmail, Instant userCreatedAt) {
         this.userName = userName;
         this.userAge = userAge;
         this.userEmail = userEmail;
@@ -64,14 +83,27 @@ public class User implements Serializable {
         this.userAge = userAge;
     }
 
-    public String getUserCreatedAt() {
+    public Instant getUserCreatedAt() {
         return userCreatedAt;
     }
 
-    public void setUserCreatedAt(String userCreatedAt) {
+    public void setUserCreatedAt(Instant userCreatedAt) {
         this.userCreatedAt = userCreatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    // Ключ уникальности email: совпадает с выражением индекса idx_users_email_lower (lower(user_email))
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public String toString() {
         return String.format("User{id=%d, name='%s', age=%d, email='%s', createdAt='%s'}",
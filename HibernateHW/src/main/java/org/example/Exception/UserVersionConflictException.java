@@ -0,0 +1,11 @@
+package org.example.Exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserVersionConflictException extends RuntimeException {
+    public UserVersionConflictException(int userId, long expectedVersion) {
+        super("Пользователь с ID " + userId + " уже изменён: ожидалась версия " + expectedVersion);
+    }
+}
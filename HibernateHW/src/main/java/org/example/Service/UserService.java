@@ -1,19 +1,32 @@
 package org.example.Service;
 
+import org.example.Dto.BulkDeleteResultDto;
 import org.example.Dto.CreateUserRequest;
 import org.example.Dto.UpdateUserRequest;
+import org.example.Dto.UserBatchDto;
 import org.example.Dto.UserDto;
+import org.example.Dto.UserPageDto;
+import org.example.Dto.UserSearchFilter;
 import org.example.Entity.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
     UserDto createUser(CreateUserRequest request);
+    List<UserDto> createUsers(List<CreateUserRequest> requests);
     UserDto getUserById(int id);
+    UserDto getUserByEmail(String email);
+    boolean isEmailAvailable(String email);
+    UserBatchDto getUsersByIds(List<Integer> ids);
     List<UserDto> getAllUsers();
+    UserPageDto getUsersPage(String cursor, int limit, UserSearchFilter filter);
+    long exportUsers(Consumer<UserDto> sink);
     UserDto updateUser(int id, UpdateUserRequest request);
+    UserDto patchUser(int id, long expectedVersion, UpdateUserRequest request);
     void deleteUser(int id);
+    BulkDeleteResultDto deleteUsers(List<Integer> ids);
 
     void printAllUsers();
     boolean validateEmail(String email);
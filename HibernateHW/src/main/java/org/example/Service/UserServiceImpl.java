@@ -2,44 +2,83 @@ package org.example.Service;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.example.Dto.BulkDeleteResultDto;
 import org.example.Dto.CreateUserRequest;
+import org.example.Dto.UserChangeDto;
 import org.example.Dto.UpdateUserRequest;
+import org.example.Dto.UserBatchDto;
 import org.example.Dto.UserDto;
+import org.example.Dto.UserPageDto;
+import org.example.Dto.UserSearchFilter;
 import org.example.Entity.User;
 import org.example.Exception.DuplicateEmailException;
 import org.example.Exception.UserNotFoundException;
+import org.example.Exception.UserVersionConflictException;
 import org.example.Exception.ValidationException;
+import org.example.cache.SingleFlight;
+import org.example.cache.UserEmailBloomFilter;
+import org.example.cache.UserCache;
 import org.example.event.UserCreateEvent;
 import org.example.event.UserDeleteEvent;
+import org.example.event.UserSnapshot;
+import org.example.event.UserUpdateEvent;
+import org.example.kafkaConfig.KafkaConfig;
+import org.example.outbox.UserEventOutbox;
+import org.example.repository.UserPatchResult;
 import org.example.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private static final Logger logger = LogManager.getLogger(UserServiceImpl.class);
     private final UserRepository userRepository;
-
-    private KafkaTemplate<String, UserCreateEvent> kafkaCreateTemplate;
-    private KafkaTemplate<String, UserDeleteEvent> kafkaDeleteTemplate;
-    private static final DateTimeFormatter DATE_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final UserEventOutbox userEventOutbox;
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserEmailBloomFilter emailFilter;
+    private final SingleFlight<Integer, UserDto> idLoads = new SingleFlight<>();
+    private final SingleFlight<String, UserDto> emailLoads = new SingleFlight<>();
+
+    // String.matches компилирует регулярное выражение при каждом вызове
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int EMAIL_LOOKUP_CHUNK = 1_000;
+    // Размер IN-списка одного запроса по списку id
+    private static final int ID_CHUNK = 1_000;
+    private static final String CURSOR_PREFIX = "u:";
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository,KafkaTemplate<String, UserCreateEvent> kafkaCreateTemplate,KafkaTemplate<String, UserDeleteEvent> kafkaDeleteTemplate) {
+    public UserServiceImpl(UserRepository userRepository, UserEventOutbox userEventOutbox, UserCache userCache,
+                           ApplicationEventPublisher eventPublisher, UserEmailBloomFilter emailFilter) {
         this.userRepository = userRepository;
-        this.kafkaCreateTemplate=kafkaCreateTemplate;
-        this.kafkaDeleteTemplate=kafkaDeleteTemplate;
+        this.userEventOutbox = userEventOutbox;
+        this.userCache = userCache;
+        this.eventPublisher = eventPublisher;
+        this.emailFilter = emailFilter;
     }
 
     @Override
@@ -49,11 +88,7 @@ public class UserServiceImpl implements UserService {
 
         validateCreateRequest(request);
 
-        if (userRepository.existsByUserEmail(request.getEmail())) {
-            throw new DuplicateEmailException("Email " + request.getEmail() + " уже используется");
-        }
-
-        String createdAt = LocalDateTime.now().format(DATE_FORMATTER);
+        Instant createdAt = Instant.now();
         User user = new User(
                 request.getName(),
                 request.getAge(),
@@ -61,35 +96,194 @@ public class UserServiceImpl implements UserService {
                 createdAt
         );
 
-        User savedUser = userRepository.save(user);
+        // Проверка уникальности и вставка одним запросом: конфликт по user_email решает сама БД
+        User savedUser = userRepository.insertIfEmailAbsent(user)
+                .orElseThrow(() -> new DuplicateEmailException("Email " + request.getEmail() + " уже используется"));
 
         logger.info("Пользователь успешно создан с ID: {}", savedUser.getUserId());
 
         UserCreateEvent userCreateEvent = new UserCreateEvent(savedUser.getUserId(),savedUser.getUserEmail());
+        userEventOutbox.enqueue(KafkaConfig.USER_CREATED_TOPIC, savedUser.getUserId().toString(), userCreateEvent);
+        userEventOutbox.enqueue(KafkaConfig.USER_SNAPSHOT_TOPIC, savedUser.getUserId().toString(), toSnapshot(savedUser));
 
-        SendResult<String, UserCreateEvent> createResult;
-        try {
-             createResult = kafkaCreateTemplate
-                    .send("user-created-event-topic", savedUser.getUserId().toString(), userCreateEvent).get();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        UserDto result = convertToDto(savedUser);
+        eventPublisher.publishEvent(new UserChangeDto(UserChangeDto.Type.CREATED, result.getId(), result));
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public List<UserDto> createUsers(List<CreateUserRequest> requests) {
+        logger.info("Пакетное создание пользователей: {}", requests == null ? 0 : requests.size());
+
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("Список пользователей не может быть пустым");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("За один запрос можно создать не более " + MAX_BATCH_SIZE + " пользователей");
+        }
+
+        List<String> emails = new ArrayList<>(requests.size());
+        Set<String> uniqueEmails = new HashSet<>(requests.size() * 2);
+        for (int i = 0; i < requests.size(); i++) {
+            CreateUserRequest request = requests.get(i);
+            try {
+                validateCreateRequest(request);
+            } catch (ValidationException e) {
+                throw new ValidationException("Пользователь #" + i + ": " + e.getMessage());
+            }
+            // Сравнение без учёта регистра, как в уникальном индексе lower(user_email)
+            String normalizedEmail = User.normalizeEmail(request.getEmail());
+            if (!uniqueEmails.add(normalizedEmail)) {
+                throw new DuplicateEmailException("Email " + request.getEmail() + " повторяется в запросе");
+            }
+            emails.add(normalizedEmail);
+        }
+
+        for (int from = 0; from < emails.size(); from += EMAIL_LOOKUP_CHUNK) {
+            List<String> existing = userRepository.findExistingEmails(
+                    emails.subList(from, Math.min(from + EMAIL_LOOKUP_CHUNK, emails.size())));
+            if (!existing.isEmpty()) {
+                throw new DuplicateEmailException("Email уже используются: " + existing);
+            }
+        }
+
+        Instant createdAt = Instant.now();
+        List<User> users = new ArrayList<>(requests.size());
+        for (CreateUserRequest request : requests) {
+            users.add(new User(request.getName(), request.getAge(), request.getEmail(), createdAt));
         }
-        logger.info("Topic: {}", createResult.getRecordMetadata().topic());
-        logger.info("partition: {}", createResult.getRecordMetadata().partition());
-        logger.info("Offset: {}", createResult.getRecordMetadata().offset());
-        return convertToDto(savedUser);
+
+        List<User> savedUsers = userRepository.insertAll(users);
+        logger.info("Пакетно создано пользователей: {}", savedUsers.size());
+
+        List<UserCreateEvent> events = savedUsers.stream()
+                .map(user -> new UserCreateEvent(user.getUserId(), user.getUserEmail()))
+                .collect(Collectors.toList());
+        userEventOutbox.enqueueAll(KafkaConfig.USER_CREATED_TOPIC, events, event -> event.getUserId().toString());
+        List<UserSnapshot> snapshots = savedUsers.stream()
+                .map(this::toSnapshot)
+                .collect(Collectors.toList());
+        userEventOutbox.enqueueAll(KafkaConfig.USER_SNAPSHOT_TOPIC, snapshots, snapshot -> snapshot.getUserId().toString());
+
+        List<UserDto> result = savedUsers.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        // Одно уведомление на пакет: иначе пакет больше буфера подписчика отключил бы всех подписчиков
+        List<Integer> ids = result.stream().map(UserDto::getId).collect(Collectors.toList());
+        eventPublisher.publishEvent(new UserChangeDto(UserChangeDto.Type.CREATED, ids, result));
+        return result;
     }
 
+    // Без @Transactional: попадание в кэш не должно открывать транзакцию и брать соединение из пула
     @Override
-    @Transactional(readOnly = true)
     public UserDto getUserById(int id) {
         logger.debug("Поиск пользователя по ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException(id));
+        UserDto cached = userCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
 
-        logger.debug("Пользователь найден: {}", user.getUserName());
-        return convertToDto(user);
+        // Одновременные промахи по одному id ждут одну загрузку из базы
+        return idLoads.execute(id, () -> {
+            // Проекция в DTO вместо findById + convertToDto: сущность не попадает в контекст персистентности
+            UserDto userDto = userRepository.findDtoById(id)
+                    .orElseThrow(() -> new UserNotFoundException(id));
+
+            logger.debug("Пользователь найден: {}", userDto.getName());
+            userCache.put(id, userDto);
+            return userDto;
+        });
+    }
+
+    @Override
+    public UserDto getUserByEmail(String email) {
+        logger.debug("Поиск пользователя по email: {}", email);
+
+        if (email == null || email.trim().isEmpty()) {
+            throw new ValidationException("Email не может быть пустым");
+        }
+
+        // Ключ и кэша, и запроса - нормализованный email: поиск идёт по индексу lower(user_email)
+        String normalizedEmail = User.normalizeEmail(email);
+        UserDto cached = userCache.getByEmail(normalizedEmail);
+        if (cached != null) {
+            return cached;
+        }
+
+        return emailLoads.execute(normalizedEmail, () -> {
+            UserDto userDto = userRepository.findDtoByNormalizedEmail(normalizedEmail)
+                    .orElseThrow(() -> new UserNotFoundException("Пользователь с email " + email + " не найден"));
+            userCache.put(userDto.getId(), userDto);
+            return userDto;
+        });
+    }
+
+    // Без @Transactional: при отрицательном ответе фильтра Блума соединение с базой не нужно
+    @Override
+    public boolean isEmailAvailable(String email) {
+        if (!validateEmail(email)) {
+            throw new ValidationException("Некорректный формат email");
+        }
+
+        String normalizedEmail = User.normalizeEmail(email);
+        if (!emailFilter.mightContain(normalizedEmail)) {
+            return true;
+        }
+        boolean taken = userRepository.existsByUserEmail(normalizedEmail);
+        if (!taken) {
+            emailFilter.recordFalsePositive();
+        }
+        return !taken;
+    }
+
+    // Как и getUserById, без @Transactional: если все id в кэше, к базе не обращаемся
+    @Override
+    public UserBatchDto getUsersByIds(List<Integer> ids) {
+        logger.debug("Поиск пользователей по списку ID: {}", ids == null ? 0 : ids.size());
+
+        if (ids == null || ids.isEmpty()) {
+            throw new ValidationException("Список ID не может быть пустым");
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("За один запрос можно получить не более " + MAX_BATCH_SIZE + " пользователей");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException("ID пользователя не может быть пустым");
+        }
+
+        List<Integer> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, UserDto> found = new HashMap<>(uniqueIds.size() * 2);
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : uniqueIds) {
+            UserDto cached = userCache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        for (int from = 0; from < missing.size(); from += ID_CHUNK) {
+            for (UserDto user : userRepository.findAllAsDtoByIdIn(
+                    missing.subList(from, Math.min(from + ID_CHUNK, missing.size())))) {
+                found.put(user.getId(), user);
+                userCache.put(user.getId(), user);
+            }
+        }
+
+        List<UserDto> users = new ArrayList<>(found.size());
+        List<Integer> notFoundIds = new ArrayList<>();
+        for (Integer id : uniqueIds) {
+            UserDto user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                notFoundIds.add(id);
+            }
+        }
+        return new UserBatchDto(users, notFoundIds);
     }
 
     @Override
@@ -97,10 +291,45 @@ public class UserServiceImpl implements UserService {
     public List<UserDto> getAllUsers() {
         logger.debug("Получение списка всех пользователей");
 
-        Iterable<User> users = userRepository.findAll();
-        return StreamSupport.stream(users.spliterator(), false)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return userRepository.findAllAsDto();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserPageDto getUsersPage(String cursor, int limit, UserSearchFilter filter) {
+        logger.debug("Получение страницы пользователей, курсор: {}, лимит: {}", cursor, limit);
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        validateSearchFilter(filter);
+
+        // Берём на одну запись больше, чтобы понять, есть ли следующая страница
+        List<UserDto> items = userRepository.findPage(decodeCursor(cursor), limit + 1, filter);
+        boolean hasNext = items.size() > limit;
+        if (hasNext) {
+            items = items.subList(0, limit);
+        }
+
+        String nextCursor = hasNext ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return new UserPageDto(items, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportUsers(Consumer<UserDto> sink) {
+        logger.info("Выгрузка всех пользователей");
+
+        long exported = 0;
+        try (Stream<UserDto> users = userRepository.streamAllAsDto()) {
+            for (UserDto user : (Iterable<UserDto>) users::iterator) {
+                sink.accept(user);
+                exported++;
+            }
+        }
+
+        logger.info("Выгружено пользователей: {}", exported);
+        return exported;
     }
 
     @Override
@@ -110,13 +339,21 @@ public class UserServiceImpl implements UserService {
 
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
+        Long loadedVersion = user.getVersion();
 
         validateUpdateRequest(request);
 
         boolean isUpdated = false;
+        // в событие попадают только действительно изменившиеся поля
+        String changedName = null;
+        Integer changedAge = null;
 
         if (request.getName() != null && !request.getName().trim().isEmpty()) {
-            user.setUserName(request.getName().trim());
+            String name = request.getName().trim();
+            if (!name.equals(user.getUserName())) {
+                changedName = name;
+            }
+            user.setUserName(name);
             isUpdated = true;
         }
 
@@ -124,21 +361,39 @@ public class UserServiceImpl implements UserService {
             if (!validateAge(request.getAge())) {
                 throw new ValidationException("Возраст должен быть от 0 до 80 лет");
             }
+            if (!Objects.equals(request.getAge(), user.getUserAge())) {
+                changedAge = request.getAge();
+            }
             user.setUserAge(request.getAge());
             isUpdated = true;
         }
 
+        String newEmail = null;
         if (request.getEmail() != null && !request.getEmail().trim().isEmpty()) {
-            String newEmail = request.getEmail().trim();
-            if (!newEmail.equals(user.getUserEmail()) && userRepository.existsByUserEmail(newEmail)) {
-                throw new DuplicateEmailException("Email " + newEmail + " уже используется");
+            String email = request.getEmail().trim();
+            if (!email.equals(user.getUserEmail())) {
+                newEmail = email;
             }
-            user.setUserEmail(newEmail);
+            user.setUserEmail(email);
             isUpdated = true;
         }
 
         if (isUpdated) {
-            userRepository.save(user);
+            // UPDATE выполняется здесь, а не на коммите: конфликт версий и занятость email
+            // (уникальный индекс, без отдельного existsByUserEmail) превращаются в 409, а не в 500
+            try {
+                userRepository.save(user);
+                userRepository.flush();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                throw new UserVersionConflictException(id, loadedVersion);
+            } catch (DataIntegrityViolationException e) {
+                if (newEmail == null) {
+                    throw e;
+                }
+                throw new DuplicateEmailException("Email " + newEmail + " уже используется");
+            }
+            userCache.invalidateAfterCommit(id);
+            publishUpdate(user, newEmail, changedName, changedAge);
             logger.info("Данные пользователя ID: {} обновлены", id);
         } else {
             logger.info("Данные пользователя ID: {} не изменились", id);
@@ -147,31 +402,128 @@ public class UserServiceImpl implements UserService {
         return convertToDto(user);
     }
 
+    @Override
+    @Transactional
+    public UserDto patchUser(int id, long expectedVersion, UpdateUserRequest request) {
+        logger.info("Частичное обновление пользователя ID: {}, версия: {}", id, expectedVersion);
+
+        validateUpdateRequest(request);
+        String name = trimToNull(request.getName());
+        String email = trimToNull(request.getEmail());
+        Integer age = request.getAge();
+        if (name == null && email == null && age == null) {
+            throw new ValidationException("Не указано ни одного поля для обновления");
+        }
+
+        // Без предварительного findById: проверка версии и запись - один UPDATE
+        UserPatchResult result;
+        try {
+            result = userRepository.patch(id, expectedVersion, name, age, email).orElse(null);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateEmailException("Email " + email + " уже используется");
+        }
+        if (result == null) {
+            // Медленный путь только при неудаче: отличаем отсутствие пользователя от устаревшей версии
+            if (!userRepository.existsById(id)) {
+                throw new UserNotFoundException(id);
+            }
+            throw new UserVersionConflictException(id, expectedVersion);
+        }
+
+        User user = result.getUser();
+        userCache.invalidateAfterCommit(id);
+        publishUpdate(user,
+                email != null && !email.equals(result.getPreviousEmail()) ? email : null,
+                name != null && !name.equals(result.getPreviousName()) ? name : null,
+                age != null && !age.equals(result.getPreviousAge()) ? age : null);
+        logger.info("Пользователь ID: {} обновлён до версии {}", id, user.getVersion());
+
+        return convertToDto(user);
+    }
+
+    // Kafka-события и уведомление подписчиков, если хотя бы одно поле действительно изменилось
+    private void publishUpdate(User user, String newEmail, String changedName, Integer changedAge) {
+        if (changedName == null && changedAge == null && newEmail == null) {
+            return;
+        }
+        String key = String.valueOf(user.getUserId());
+        userEventOutbox.enqueue(KafkaConfig.USER_UPDATED_TOPIC, key,
+                new UserUpdateEvent(user.getUserId(), newEmail, changedName, changedAge));
+        userEventOutbox.enqueue(KafkaConfig.USER_SNAPSHOT_TOPIC, key, toSnapshot(user));
+        eventPublisher.publishEvent(new UserChangeDto(UserChangeDto.Type.UPDATED, user.getUserId(), convertToDto(user)));
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+
     @Override
     @Transactional
     public void deleteUser(int id) {
         logger.info("Удаление пользователя ID: {}", id);
 
-        User user = userRepository.findById(id)
+        // Один DELETE ... RETURNING вместо findById + deleteById (который ещё раз загружает сущность)
+        String userEmail = userRepository.deleteReturningEmail(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
-        String userEmail = user.getUserEmail();
 
-        userRepository.deleteById(id);
+        userCache.invalidateAfterCommit(id);
         logger.info("Пользователь ID: {} успешно удален", id);
 
         UserDeleteEvent userDeleteEvent = new UserDeleteEvent(id, userEmail);
-        String idTosend= String.valueOf(id);
-        SendResult<String, UserDeleteEvent> deleteResult;
-        try {
-            deleteResult = kafkaDeleteTemplate
-                    .send("user-delete-event-topic", idTosend, userDeleteEvent).get();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        userEventOutbox.enqueue(KafkaConfig.USER_DELETED_TOPIC, String.valueOf(id), userDeleteEvent);
+        userEventOutbox.enqueueTombstone(KafkaConfig.USER_SNAPSHOT_TOPIC, String.valueOf(id));
+        eventPublisher.publishEvent(new UserChangeDto(UserChangeDto.Type.DELETED, id, null));
+    }
+
+    @Override
+    @Transactional
+    public BulkDeleteResultDto deleteUsers(List<Integer> ids) {
+        logger.info("Пакетное удаление пользователей: {}", ids == null ? 0 : ids.size());
+
+        if (ids == null || ids.isEmpty()) {
+            throw new ValidationException("Список ID не может быть пустым");
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("За один запрос можно удалить не более " + MAX_BATCH_SIZE + " пользователей");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException("ID пользователя не может быть пустым");
         }
-        logger.info("Topic: {}", deleteResult.getRecordMetadata().topic());
-        logger.info("partition: {}", deleteResult.getRecordMetadata().partition());
-        logger.info("Offset: {}", deleteResult.getRecordMetadata().offset());
 
+        // Повторы в запросе удаляются один раз; порядок ответа — порядок первого упоминания
+        List<Integer> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, String> deleted = new LinkedHashMap<>(uniqueIds.size() * 2);
+        for (int from = 0; from < uniqueIds.size(); from += ID_CHUNK) {
+            deleted.putAll(userRepository.deleteAllReturningEmails(
+                    uniqueIds.subList(from, Math.min(from + ID_CHUNK, uniqueIds.size()))));
+        }
+
+        List<Integer> deletedIds = new ArrayList<>(deleted.size());
+        List<Integer> notFoundIds = new ArrayList<>();
+        for (Integer id : uniqueIds) {
+            if (deleted.containsKey(id)) {
+                deletedIds.add(id);
+            } else {
+                notFoundIds.add(id);
+            }
+        }
+        logger.info("Пакетно удалено пользователей: {}, не найдено: {}", deletedIds.size(), notFoundIds.size());
+
+        if (!deletedIds.isEmpty()) {
+            userCache.invalidateAllAfterCommit(deletedIds);
+
+            List<UserDeleteEvent> events = deletedIds.stream()
+                    .map(id -> new UserDeleteEvent(id, deleted.get(id)))
+                    .collect(Collectors.toList());
+            userEventOutbox.enqueueAll(KafkaConfig.USER_DELETED_TOPIC, events, event -> event.getUserId().toString());
+            userEventOutbox.enqueueTombstones(KafkaConfig.USER_SNAPSHOT_TOPIC,
+                    deletedIds.stream().map(String::valueOf).collect(Collectors.toList()));
+            eventPublisher.publishEvent(new UserChangeDto(UserChangeDto.Type.DELETED, deletedIds, null));
+        }
+        return new BulkDeleteResultDto(deletedIds, notFoundIds);
     }
 
     @Override
@@ -193,7 +545,7 @@ public class UserServiceImpl implements UserService {
         if (email == null || email.trim().isEmpty()) {
             return false;
         }
-        return email.matches("^[A-Za-z0-9+_.-]+@(.+)$");
+        return EMAIL_PATTERN.matcher(email).matches();
     }
 
     @Override
@@ -230,13 +582,59 @@ public class UserServiceImpl implements UserService {
         }
     }
 
-    private UserDto convertToDto(User user) {
-        return new UserDto(
+    private void validateSearchFilter(UserSearchFilter filter) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getMinAge() != null && filter.getMaxAge() != null && filter.getMinAge() > filter.getMaxAge()) {
+            throw new ValidationException("Минимальный возраст не может быть больше максимального");
+        }
+        if (filter.getCreatedFrom() != null && filter.getCreatedTo() != null
+                && !filter.getCreatedFrom().isBefore(filter.getCreatedTo())) {
+            throw new ValidationException("createdFrom должен быть раньше createdTo");
+        }
+    }
+
+    private static String encodeCursor(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            return Integer.parseInt(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+    }
+
+    // Пакетная видимость — для JMH-бенчмарка в модуле HibernateHW-benchmarks
+    UserDto convertToDto(User user) {
+        UserDto dto = new UserDto(
                 user.getUserId(),
                 user.getUserName(),
                 user.getUserAge(),
                 user.getUserEmail(),
                 user.getUserCreatedAt()
         );
+        dto.setVersion(user.getVersion());
+        return dto;
+    }
+
+    // Для теста: сколько чтений по id дождались чужой загрузки вместо своего запроса
+    long sharedIdLoadCount() {
+        return idLoads.sharedCount();
+    }
+
+    private UserSnapshot toSnapshot(User user) {
+        return new UserSnapshot(user.getUserId(), user.getUserName(), user.getUserEmail(), user.getUserAge(),
+                user.getUserCreatedAt().toString());
     }
 }
\ No newline at end of file
@@ -0,0 +1,331 @@
+package org.example.cache;
+
+import org.example.Dto.UserDto;
+import org.example.Entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш UserDto с ключом int без упаковки в Integer.
+ * Разбит на сегменты с отдельными блокировками; внутри сегмента — открытая адресация и вытеснение CLOCK.
+ */
+@Component
+public class UserCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    // Нормализованный email -> id. Только указатель на запись по id: устаревший указатель
+    // отбрасывается при чтении, поэтому отдельной инвалидации по email не нужно
+    private final ConcurrentMap<String, Integer> emailIndex = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @Autowired
+    public UserCache(@Value("${user.cache.max-size:100000}") int maxSize,
+                     @Value("${user.cache.ttl-ms:300000}") long ttlMs) {
+        if (maxSize < SEGMENTS) {
+            throw new IllegalArgumentException("Размер кэша должен быть не меньше " + SEGMENTS);
+        }
+        int segmentCapacity = (maxSize + SEGMENTS - 1) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.maxSize = segmentCapacity * SEGMENTS;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    public UserDto get(int id) {
+        UserDto user = segmentFor(id).get(id, System.nanoTime());
+        if (user == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return user;
+    }
+
+    public void put(int id, UserDto user) {
+        segmentFor(id).put(id, user, System.nanoTime());
+        if (user.getEmail() != null) {
+            if (emailIndex.size() >= maxSize) {
+                emailIndex.clear();
+            }
+            emailIndex.put(User.normalizeEmail(user.getEmail()), id);
+        }
+    }
+
+    // Поиск по нормализованному email: через индекс email -> id и проверку, что у записи тот же email
+    public UserDto getByEmail(String normalizedEmail) {
+        Integer id = emailIndex.get(normalizedEmail);
+        if (id == null) {
+            misses.increment();
+            return null;
+        }
+        UserDto user = get(id);
+        if (user == null || !normalizedEmail.equals(User.normalizeEmail(user.getEmail()))) {
+            emailIndex.remove(normalizedEmail, id);
+            return null;
+        }
+        return user;
+    }
+
+    public void invalidate(int id) {
+        segmentFor(id).remove(id);
+    }
+
+    // Повторная инвалидация после коммита закрывает окно, в котором читатель
+    // мог положить в кэш ещё не закоммиченное старое состояние
+    public void invalidateAfterCommit(int id) {
+        invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(id);
+                }
+            });
+        }
+    }
+
+    // То же для пакета id, но с одной синхронизацией на транзакцию вместо одной на каждый id
+    public void invalidateAllAfterCommit(Collection<Integer> ids) {
+        ids.forEach(this::invalidate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(UserCache.this::invalidate);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        emailIndex.clear();
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public UserCacheStats stats() {
+        return new UserCacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size(), maxSize);
+    }
+
+    private Segment segmentFor(int id) {
+        return segments[(mix(id) >>> 28) & (SEGMENTS - 1)];
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+
+        // Слоты с данными
+        private final int[] keys;
+        private final UserDto[] values;
+        private final long[] expiresAt;
+        private final boolean[] referenced;
+        private final int[] freeSlots;
+        private int freeCount;
+        private int allocated;
+        private int size;
+        private int clockHand;
+
+        // Хэш-индекс: номер слота + 1, 0 — пусто
+        private final int[] index;
+        private final int indexMask;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.keys = new int[capacity];
+            this.values = new UserDto[capacity];
+            this.expiresAt = new long[capacity];
+            this.referenced = new boolean[capacity];
+            this.freeSlots = new int[capacity];
+            int indexSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+            this.index = new int[indexSize];
+            this.indexMask = indexSize - 1;
+        }
+
+        UserDto get(int key, long now) {
+            lock.lock();
+            try {
+                int position = find(key);
+                if (position < 0) {
+                    return null;
+                }
+                int slot = index[position] - 1;
+                if (expiresAt[slot] - now <= 0) {
+                    removeAt(position);
+                    expirations.increment();
+                    return null;
+                }
+                referenced[slot] = true;
+                return values[slot];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(int key, UserDto value, long now) {
+            lock.lock();
+            try {
+                int position = find(key);
+                int slot;
+                if (position >= 0) {
+                    slot = index[position] - 1;
+                } else {
+                    slot = allocateSlot(now);
+                    keys[slot] = key;
+                    insertIndex(key, slot);
+                    size++;
+                }
+                values[slot] = value;
+                expiresAt[slot] = now + ttlNanos;
+                referenced[slot] = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(int key) {
+            lock.lock();
+            try {
+                int position = find(key);
+                if (position >= 0) {
+                    removeAt(position);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                Arrays.fill(index, 0);
+                Arrays.fill(values, null);
+                freeCount = 0;
+                allocated = 0;
+                size = 0;
+                clockHand = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int allocateSlot(long now) {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (allocated < capacity) {
+                return allocated++;
+            }
+            // CLOCK: недавно прочитанные записи получают второй шанс, просроченные уходят первыми
+            while (true) {
+                int slot = clockHand;
+                clockHand = clockHand + 1 == capacity ? 0 : clockHand + 1;
+                if (expiresAt[slot] - now <= 0) {
+                    removeAt(find(keys[slot]));
+                    expirations.increment();
+                    return freeSlots[--freeCount];
+                }
+                if (referenced[slot]) {
+                    referenced[slot] = false;
+                } else {
+                    removeAt(find(keys[slot]));
+                    evictions.increment();
+                    return freeSlots[--freeCount];
+                }
+            }
+        }
+
+        private int find(int key) {
+            int position = mix(key) & indexMask;
+            while (true) {
+                int entry = index[position];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (keys[entry - 1] == key) {
+                    return position;
+                }
+                position = (position + 1) & indexMask;
+            }
+        }
+
+        private void insertIndex(int key, int slot) {
+            int position = mix(key) & indexMask;
+            while (index[position] != 0) {
+                position = (position + 1) & indexMask;
+            }
+            index[position] = slot + 1;
+        }
+
+        // Удаление с обратным сдвигом, чтобы цепочки линейного пробирования не рвались
+        private void removeAt(int position) {
+            int slot = index[position] - 1;
+            values[slot] = null;
+            referenced[slot] = false;
+            freeSlots[freeCount++] = slot;
+            size--;
+
+            int hole = position;
+            int next = position;
+            while (true) {
+                next = (next + 1) & indexMask;
+                int entry = index[next];
+                if (entry == 0) {
+                    break;
+                }
+                int home = mix(keys[entry - 1]) & indexMask;
+                boolean movable = hole <= next
+                        ? home <= hole || home > next
+                        : home <= hole && home > next;
+                if (movable) {
+                    index[hole] = entry;
+                    hole = next;
+                }
+            }
+            index[hole] = 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.Entity.User;
+import org.example.event.UserCreateEvent;
+import org.example.event.UserDeleteEvent;
+import org.example.event.UserUpdateEvent;
+import org.example.kafkaConfig.KafkaConfig;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Держит локальный {@link UserCache}, кэш второго уровня Hibernate и {@link UserEmailBloomFilter}
+ * согласованными с остальными инстансами.
+ * У каждого инстанса своя consumer group, поэтому каждое событие получают все узлы.
+ */
+@Component
+@KafkaListener(
+        topics = {KafkaConfig.USER_CREATED_TOPIC, KafkaConfig.USER_UPDATED_TOPIC, KafkaConfig.USER_DELETED_TOPIC},
+        groupId = "${user.cache.consumer-group}",
+        autoStartup = "${user.cache.invalidation-enabled:true}"
+)
+public class UserCacheInvalidationListener {
+
+    private static final Logger logger = LogManager.getLogger(UserCacheInvalidationListener.class);
+
+    private final UserCache userCache;
+    private final UserEmailBloomFilter emailFilter;
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public UserCacheInvalidationListener(UserCache userCache, UserEmailBloomFilter emailFilter,
+                                         EntityManagerFactory entityManagerFactory) {
+        this.userCache = userCache;
+        this.emailFilter = emailFilter;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @KafkaHandler
+    public void onUserCreated(UserCreateEvent event) {
+        invalidate(event.getUserId());
+        emailFilter.add(event.getUserEmail());
+    }
+
+    @KafkaHandler
+    public void onUserUpdated(UserUpdateEvent event) {
+        logger.debug("Инвалидация кэша по обновлению пользователя ID: {}", event.getUserId());
+        invalidate(event.getUserId());
+        // null - email не менялся
+        emailFilter.add(event.getUserEmail());
+    }
+
+    @KafkaHandler
+    public void onUserDeleted(UserDeleteEvent event) {
+        logger.debug("Инвалидация кэша по удалению пользователя ID: {}", event.getUserId());
+        invalidate(event.getUserId());
+    }
+
+    @KafkaHandler(isDefault = true)
+    public void onUnknown(Object event) {
+        logger.warn("Неизвестное событие в топиках пользователей: {}", event);
+    }
+
+    // Регион L2 локален для узла: без вытеснения findById в PUT отдаёт устаревшую версию и UPDATE получает 409
+    private void invalidate(int userId) {
+        userCache.invalidate(userId);
+        sessionFactory.getCache().evictEntityData(User.class, userId);
+    }
+}
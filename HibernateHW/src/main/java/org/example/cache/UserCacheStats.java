@@ -0,0 +1,48 @@
+package org.example.cache;
+
+public class UserCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long size;
+    private final long maxSize;
+
+    public UserCacheStats(long hits, long misses, long evictions, long expirations, long size, long maxSize) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.Dto.UserChangeDto;
+import org.example.Entity.User;
+import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Фильтр Блума по нормализованным user_email для проверки занятости email без запроса в базу.
+ * Отрицательный ответ точен, положительный - лишь «возможно занят» и проверяется в БД.
+ * Строится потоком по таблице при старте; новые email добавляются при создании и смене email
+ * (локально и по событиям Kafka с других инстансов). Удалённые email из фильтра не уходят,
+ * поэтому он периодически перестраивается.
+ * Пока фильтр не построен, {@link #mightContain} всегда отвечает true - то есть проверка идёт в БД.
+ */
+@Component
+public class UserEmailBloomFilter {
+
+    private static final Logger logger = LogManager.getLogger(UserEmailBloomFilter.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int bitCount;
+    private final int hashCount;
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    private volatile Bits current;
+    // Фильтр, который сейчас строится: новые email пишутся и в него, чтобы не потеряться при замене
+    private volatile Bits rebuilding;
+
+    @Autowired
+    public UserEmailBloomFilter(UserRepository userRepository, TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${user.email-filter.enabled:true}") boolean enabled,
+                                @Value("${user.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                                @Value("${user.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expected-insertions должен быть положительным");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("false-positive-rate должен быть в интервале (0, 1)");
+        }
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(bits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+
+        this.negatives = Counter.builder("user.email-filter.checks").tag("result", "absent").register(meterRegistry);
+        this.positives = Counter.builder("user.email-filter.checks").tag("result", "maybe-present").register(meterRegistry);
+        this.falsePositives = Counter.builder("user.email-filter.false-positives").register(meterRegistry);
+        Gauge.builder("user.email-filter.insertions", this, filter -> filter.current == null ? 0 : filter.current.insertions.sum())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${user.email-filter.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${user.email-filter.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        Bits bits = new Bits(bitCount);
+        rebuilding = bits;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(email -> bits.add(User.normalizeEmail(email), hashCount));
+                }
+            });
+            current = bits;
+            logger.info("Фильтр Блума по email построен: {} email за {} мс",
+                    bits.insertions.sum(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Остаётся прежний фильтр (или ответ «возможно занят», если его ещё нет)
+            logger.error("Не удалось построить фильтр Блума по email", e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        String normalizedEmail = User.normalizeEmail(email);
+        Bits bits = current;
+        if (bits != null) {
+            bits.add(normalizedEmail, hashCount);
+        }
+        Bits next = rebuilding;
+        if (next != null) {
+            next.add(normalizedEmail, hashCount);
+        }
+    }
+
+    // false - email точно свободен; true - возможно занят, нужна проверка в БД
+    public boolean mightContain(String normalizedEmail) {
+        Bits bits = current;
+        if (bits == null) {
+            return true;
+        }
+        boolean result = bits.mightContain(normalizedEmail, hashCount);
+        (result ? positives : negatives).increment();
+        return result;
+    }
+
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    // Новые пользователи и смена email на этом инстансе - сразу, не дожидаясь события из Kafka
+    @EventListener
+    public void onUserChange(UserChangeDto change) {
+        if (change.getUser() != null) {
+            add(change.getUser().getEmail());
+        }
+        if (change.getUsers() != null) {
+            change.getUsers().forEach(user -> add(user.getEmail()));
+        }
+    }
+
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final int size;
+        private final LongAdder insertions = new LongAdder();
+
+        Bits(int size) {
+            this.size = size;
+            this.words = new AtomicLongArray((size + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        void add(String key, int hashCount) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = index(h1 + i * h2);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (value, m) -> value | m);
+                }
+            }
+            insertions.increment();
+        }
+
+        boolean mightContain(String key, int hashCount) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = index(h1 + i * h2);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Двойное хеширование (Kirsch-Mitzenmacher): k индексов из двух половин одного 64-битного хеша
+        private int index(int combined) {
+            return (combined & Integer.MAX_VALUE) % size;
+        }
+
+        // FNV-1a по UTF-8 с финальным перемешиванием из MurmurHash3
+        private static long hash64(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.controller;
+
+import org.example.Dto.HibernateStatsDto;
+import org.example.cache.UserCache;
+import org.example.cache.UserCacheStats;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final UserCache userCache;
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public StatsController(UserCache userCache, EntityManagerFactory entityManagerFactory) {
+        this.userCache = userCache;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @GetMapping("/user-cache")
+    public ResponseEntity<UserCacheStats> getUserCacheStats() {
+        return ResponseEntity.ok(userCache.stats());
+    }
+
+    @GetMapping("/hibernate")
+    public ResponseEntity<HibernateStatsDto> getHibernateStats() {
+        return ResponseEntity.ok(HibernateStatsDto.from(sessionFactory.getStatistics()));
+    }
+}
@@ -1,30 +1,54 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.Dto.BulkDeleteResultDto;
 import org.example.Dto.CreateUserRequest;
+import org.example.Dto.EmailAvailabilityDto;
 import org.example.Dto.UpdateUserRequest;
+import org.example.Dto.UserBatchDto;
 import org.example.Dto.UserDto;
+import org.example.Dto.UserPageDto;
+import org.example.Dto.UserSearchFilter;
+import org.example.Exception.ValidationException;
 import org.example.Service.UserService;
+import org.example.stream.UserChangeBroadcaster;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
-    private final UserService userService;
-
-
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
+    private final UserService userService;
+    private final UserChangeBroadcaster changeBroadcaster;
+    private final JsonFactory ndjsonFactory;
+    private final ObjectWriter userWriter;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserChangeBroadcaster changeBroadcaster, ObjectMapper objectMapper) {
         this.userService = userService;
-
+        this.changeBroadcaster = changeBroadcaster;
+        this.ndjsonFactory = objectMapper.getFactory().copy().setRootValueSeparator(null);
+        this.userWriter = objectMapper.writerFor(UserDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @PostMapping
@@ -35,27 +59,121 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserDto>> createUsers(@RequestBody List<CreateUserRequest> requests) {
+        List<UserDto> createdUsers = userService.createUsers(requests);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdUsers);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserDto> getUserById(@PathVariable int id) {
         UserDto user = userService.getUserById(id);
+        if (user.getVersion() != null) {
+            return ResponseEntity.ok().eTag(String.valueOf(user.getVersion())).body(user);
+        }
+        return ResponseEntity.ok(user);
+    }
+
+    // Поиск без учёта регистра: Alice@Example.com и alice@example.com - один пользователь
+    @GetMapping("/by-email")
+    public ResponseEntity<UserDto> getUserByEmail(@RequestParam String email) {
+        UserDto user = userService.getUserByEmail(email);
+        if (user.getVersion() != null) {
+            return ResponseEntity.ok().eTag(String.valueOf(user.getVersion())).body(user);
+        }
         return ResponseEntity.ok(user);
     }
 
+    // Ответ подсказка для формы регистрации: окончательно занятость email проверяет уникальный индекс при создании
+    @GetMapping("/email-available")
+    public ResponseEntity<EmailAvailabilityDto> isEmailAvailable(@RequestParam String email) {
+        boolean available = userService.isEmailAvailable(email);
+        return ResponseEntity.ok(new EmailAvailabilityDto(email, available));
+    }
+
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        List<UserDto> users = userService.getAllUsers();
+    public ResponseEntity<UserPageDto> getAllUsers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int limit,
+                                                   @RequestParam(required = false) String name,
+                                                   @RequestParam(required = false) Integer minAge,
+                                                   @RequestParam(required = false) Integer maxAge,
+                                                   @RequestParam(required = false) Instant createdFrom,
+                                                   @RequestParam(required = false) Instant createdTo) {
+        UserPageDto page = userService.getUsersPage(cursor, limit,
+                new UserSearchFilter(name, minAge, maxAge, createdFrom, createdTo));
+        return ResponseEntity.ok(page);
+    }
+
+    // GET /users?ids=1,2,3: найденные пользователи в порядке запроса и список отсутствующих id
+    @GetMapping(params = "ids")
+    public ResponseEntity<UserBatchDto> getUsersByIds(@RequestParam List<Integer> ids) {
+        UserBatchDto users = userService.getUsersByIds(ids);
         return ResponseEntity.ok(users);
     }
 
+    // Поток изменений вместо опроса GET /users: события created/updated/deleted в формате SSE
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        return changeBroadcaster.subscribe();
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = ndjsonFactory.createGenerator(outputStream)) {
+                userService.exportUsers(user -> {
+                    try {
+                        userWriter.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<UserDto> updateUser(@PathVariable int id, @Valid @RequestBody UpdateUserRequest request) {
         UserDto updatedUser = userService.updateUser(id, request);
         return ResponseEntity.ok(updatedUser);
     }
 
+    // Частичное обновление одним UPDATE; ожидаемая версия - в If-Match (ETag из GET /users/{id}), при расхождении 409
+    @PatchMapping("/{id}")
+    public ResponseEntity<UserDto> patchUser(@PathVariable int id,
+                                             @RequestHeader(HttpHeaders.IF_MATCH) String ifMatch,
+                                             @Valid @RequestBody UpdateUserRequest request) {
+        UserDto patchedUser = userService.patchUser(id, parseVersion(ifMatch), request);
+        return ResponseEntity.ok().eTag(String.valueOf(patchedUser.getVersion())).body(patchedUser);
+    }
+
+    // Тело DELETE - список id; в ответе для каждого id: удалён или не найден
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteResultDto> deleteUsers(@RequestBody List<Integer> ids) {
+        BulkDeleteResultDto result = userService.deleteUsers(ids);
+        return ResponseEntity.ok(result);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable int id) {
         userService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static long parseVersion(String ifMatch) {
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Некорректная версия в If-Match: " + ifMatch);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package org.example.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.example.event.UserEventSerializer.*;
+
+/**
+ * Читает события, записанные {@link UserEventSerializer}. Незнакомая версия схемы - ошибка,
+ * чтобы старый потребитель не разобрал молча запись нового формата.
+ */
+public class UserEventDeserializer implements Deserializer<Object> {
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < 3) {
+            throw new SerializationException("Слишком короткая запись события: " + data.length + " байт");
+        }
+        if (data[0] < MIN_SUPPORTED_VERSION || data[0] > VERSION) {
+            throw new SerializationException("Неподдерживаемая версия схемы события: " + data[0]);
+        }
+
+        int flags = data[2];
+        int[] position = {3};
+        Integer userId = (flags & HAS_USER_ID) != 0 ? readVarInt(data, position) : null;
+        String email = (flags & HAS_EMAIL) != 0 ? readString(data, position, topic) : null;
+        String name = (flags & HAS_NAME) != 0 ? readString(data, position, topic) : null;
+        Integer age = (flags & HAS_AGE) != 0 ? readVarInt(data, position) : null;
+        String createdAt = (flags & HAS_CREATED_AT) != 0 ? readString(data, position, topic) : null;
+
+        switch (data[1]) {
+            case TYPE_CREATE:
+                return new UserCreateEvent(userId, email);
+            case TYPE_DELETE:
+                return new UserDeleteEvent(userId, email);
+            case TYPE_UPDATE:
+                return new UserUpdateEvent(userId, email, name, age);
+            case TYPE_SNAPSHOT:
+                return new UserSnapshot(userId, name, email, age, createdAt);
+            default:
+                throw new SerializationException("Неизвестный тип события: " + data[1]);
+        }
+    }
+
+    private static String readString(byte[] data, int[] position, String topic) {
+        int length = readVarInt(data, position);
+        if (length < 0 || position[0] + length > data.length) {
+            throw new SerializationException("Повреждённая запись события в топике " + topic);
+        }
+        String value = new String(data, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    private static int readVarInt(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new SerializationException("Запись события оборвана на varint");
+            }
+            byte b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Слишком длинный varint в записи события");
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Arrays;
+
+/**
+ * Компактный бинарный формат событий пользователя вместо JSON с именами полей и заголовками типа.
+ * Запись: версия схемы, тег типа, флаги заполненных полей, затем только заполненные поля по порядку:
+ * userId (varint), email, name (varint-длина + UTF-8), age (varint), createdAt (varint-длина + UTF-8).
+ * Версия 2 добавила name/age/createdAt и снимок пользователя; запись версии 1 читается как раньше.
+ * Кодирование идёт в переиспользуемый буфер потока, наружу отдаётся только массив точного размера.
+ */
+public class UserEventSerializer implements Serializer<Object> {
+
+    static final byte VERSION = 2;
+    static final byte MIN_SUPPORTED_VERSION = 1;
+
+    static final byte TYPE_CREATE = 1;
+    static final byte TYPE_DELETE = 2;
+    static final byte TYPE_UPDATE = 3;
+    static final byte TYPE_SNAPSHOT = 4;
+
+    static final int HAS_USER_ID = 1;
+    static final int HAS_EMAIL = 1 << 1;
+    static final int HAS_NAME = 1 << 2;
+    static final int HAS_AGE = 1 << 3;
+    static final int HAS_CREATED_AT = 1 << 4;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof UserCreateEvent) {
+            UserCreateEvent event = (UserCreateEvent) data;
+            return encode(TYPE_CREATE, event.getUserId(), event.getUserEmail(), null, null, null);
+        }
+        if (data instanceof UserDeleteEvent) {
+            UserDeleteEvent event = (UserDeleteEvent) data;
+            return encode(TYPE_DELETE, event.getUserId(), event.getUserEmail(), null, null, null);
+        }
+        if (data instanceof UserUpdateEvent) {
+            UserUpdateEvent event = (UserUpdateEvent) data;
+            return encode(TYPE_UPDATE, event.getUserId(), event.getUserEmail(), event.getUserName(),
+                    event.getUserAge(), null);
+        }
+        if (data instanceof UserSnapshot) {
+            UserSnapshot snapshot = (UserSnapshot) data;
+            return encode(TYPE_SNAPSHOT, snapshot.getUserId(), snapshot.getUserEmail(), snapshot.getUserName(),
+                    snapshot.getUserAge(), snapshot.getUserCreatedAt());
+        }
+        throw new SerializationException("Неизвестный тип события: " + data.getClass().getName());
+    }
+
+    private static byte[] encode(byte type, Integer userId, String email, String name, Integer age, String createdAt) {
+        // худший случай: 3 байта заголовка, по 5 байт на каждый varint и 3 байта UTF-8 на каждый char
+        int maxSize = 3 + 5 * 5 + 3 * (length(email) + length(name) + length(createdAt));
+        byte[] buffer = BUFFER.get();
+        if (buffer.length < maxSize) {
+            buffer = new byte[Math.max(maxSize, buffer.length * 2)];
+            BUFFER.set(buffer);
+        }
+
+        int position = 0;
+        buffer[position++] = VERSION;
+        buffer[position++] = type;
+        buffer[position++] = (byte) ((userId != null ? HAS_USER_ID : 0) | (email != null ? HAS_EMAIL : 0)
+                | (name != null ? HAS_NAME : 0) | (age != null ? HAS_AGE : 0) | (createdAt != null ? HAS_CREATED_AT : 0));
+        if (userId != null) {
+            position = writeVarInt(buffer, position, userId);
+        }
+        if (email != null) {
+            position = writeString(buffer, position, email);
+        }
+        if (name != null) {
+            position = writeString(buffer, position, name);
+        }
+        if (age != null) {
+            position = writeVarInt(buffer, position, age);
+        }
+        if (createdAt != null) {
+            position = writeString(buffer, position, createdAt);
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private static int writeVarInt(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    // Длина в байтах заранее неизвестна, поэтому под неё резервируется один байт и при необходимости данные сдвигаются
+    private static int writeString(byte[] buffer, int position, String value) {
+        int start = position + 1;
+        int end = writeUtf8(buffer, start, value);
+        int length = end - start;
+        int lengthSize = varIntSize(length);
+        if (lengthSize > 1) {
+            System.arraycopy(buffer, start, buffer, start + lengthSize - 1, length);
+        }
+        writeVarInt(buffer, position, length);
+        return position + lengthSize + length;
+    }
+
+    private static int writeUtf8(byte[] buffer, int position, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
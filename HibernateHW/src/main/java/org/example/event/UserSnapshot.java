@@ -0,0 +1,65 @@
+package org.example.event;
+
+/**
+ * Текущее состояние пользователя для compacted-топика user-snapshot (ключ - userId).
+ * Удалённый пользователь публикуется tombstone-записью с пустым значением.
+ */
+public class UserSnapshot {
+
+    private Integer userId;
+    private String userName;
+    private String userEmail;
+    private Integer userAge;
+    private String userCreatedAt;
+
+    public UserSnapshot() {
+    }
+
+    public UserSnapshot(Integer userId, String userName, String userEmail, Integer userAge, String userCreatedAt) {
+        this.userId = userId;
+        this.userName = userName;
+        this.userEmail = userEmail;
+        this.userAge = userAge;
+        this.userCreatedAt = userCreatedAt;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public Integer getUserAge() {
+        return userAge;
+    }
+
+    public void setUserAge(Integer userAge) {
+        this.userAge = userAge;
+    }
+
+    public String getUserCreatedAt() {
+        return userCreatedAt;
+    }
+
+    public void setUserCreatedAt(String userCreatedAt) {
+        this.userCreatedAt = userCreatedAt;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.event;
+
+/**
+ * Изменение пользователя: заполнены только поля, которые действительно поменялись, остальные null.
+ */
+public class UserUpdateEvent {
+
+    private Integer userId;
+    private String userEmail;
+    private String userName;
+    private Integer userAge;
+
+    public UserUpdateEvent() {
+    }
+
+    public UserUpdateEvent( Integer userId, String userEmail) {
+        this.userId=userId;
+        this.userEmail = userEmail;
+    }
+
+    public UserUpdateEvent(Integer userId, String userEmail, String userName, Integer userAge) {
+        this.userId = userId;
+        this.userEmail = userEmail;
+        this.userName = userName;
+        this.userAge = userAge;
+    }
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public Integer getUserAge() {
+        return userAge;
+    }
+
+    public void setUserAge(Integer userAge) {
+        this.userAge = userAge;
+    }
+}
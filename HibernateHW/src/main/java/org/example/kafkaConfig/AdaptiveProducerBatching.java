@@ -0,0 +1,145 @@
+package org.example.kafkaConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Переключает общий продюсер между режимами по наблюдаемому потоку событий:
+ * LOW_LATENCY (linger 0, без сжатия) и THROUGHPUT (linger, крупные пачки, сжатие).
+ * Настройки продюсера после создания не меняются, поэтому при смене режима буфер сбрасывается
+ * в брокер, а фабрика пересоздаёт продюсер с новыми параметрами.
+ * Вызывать {@link #adjust()} нужно между отправками, когда в полёте нет сообщений вызывающего потока.
+ */
+@Component
+public class AdaptiveProducerBatching {
+
+    private static final Logger logger = LogManager.getLogger(AdaptiveProducerBatching.class);
+
+    public enum Mode {LOW_LATENCY, THROUGHPUT}
+
+    private final DefaultKafkaProducerFactory<?, ?> producerFactory;
+    private final KafkaTemplate<?, ?> kafkaTemplate;
+    private final boolean enabled;
+    private final double highRate;
+    private final double lowRate;
+    private final long windowMs;
+    private final Map<String, Object> lowLatencyConfig;
+    private final Map<String, Object> throughputConfig;
+    private final LongAdder events = new LongAdder();
+    private final Counter switches;
+
+    private volatile Mode mode = Mode.LOW_LATENCY;
+    private volatile double rate;
+    private long windowStart = System.currentTimeMillis();
+
+    @Autowired
+    public AdaptiveProducerBatching(ProducerFactory<?, ?> producerFactory, KafkaTemplate<?, ?> kafkaTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${user.kafka.adaptive.enabled:true}") boolean enabled,
+                                    @Value("${user.kafka.adaptive.high-rate-per-sec:1000}") double highRate,
+                                    @Value("${user.kafka.adaptive.low-rate-per-sec:200}") double lowRate,
+                                    @Value("${user.kafka.adaptive.window-ms:1000}") long windowMs,
+                                    @Value("${user.kafka.adaptive.throughput.linger-ms:20}") int throughputLingerMs,
+                                    @Value("${user.kafka.adaptive.throughput.batch-size:262144}") int throughputBatchSize,
+                                    @Value("${user.kafka.adaptive.throughput.compression:lz4}") String throughputCompression) {
+        if (lowRate >= highRate) {
+            throw new IllegalArgumentException("low-rate-per-sec должен быть меньше high-rate-per-sec");
+        }
+        this.producerFactory = producerFactory instanceof DefaultKafkaProducerFactory
+                ? (DefaultKafkaProducerFactory<?, ?>) producerFactory : null;
+        this.kafkaTemplate = kafkaTemplate;
+        this.enabled = enabled && this.producerFactory != null;
+        this.highRate = highRate;
+        this.lowRate = lowRate;
+        this.windowMs = windowMs;
+        this.lowLatencyConfig = Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, 0,
+                ProducerConfig.BATCH_SIZE_CONFIG, 16384,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, "none");
+        this.throughputConfig = Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, throughputLingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, throughputBatchSize,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, throughputCompression);
+
+        this.switches = meterRegistry.counter("user.events.kafka.producer.mode.switches");
+        Gauge.builder("user.events.kafka.producer.mode", this, b -> b.mode == Mode.THROUGHPUT ? 1 : 0)
+                .description("Режим продюсера: 0 - LOW_LATENCY, 1 - THROUGHPUT")
+                .register(meterRegistry);
+        Gauge.builder("user.events.kafka.rate", this, b -> b.rate)
+                .description("Поток событий в Kafka, событий в секунду")
+                .register(meterRegistry);
+        Gauge.builder("user.events.kafka.producer.linger", this, b -> b.currentSetting(ProducerConfig.LINGER_MS_CONFIG))
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("user.events.kafka.producer.batch.size", this, b -> b.currentSetting(ProducerConfig.BATCH_SIZE_CONFIG))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (this.enabled) {
+            this.producerFactory.updateConfigs(lowLatencyConfig);
+        } else if (enabled) {
+            logger.warn("Адаптивный режим продюсера отключён: фабрика {} не поддерживает смену настроек",
+                    producerFactory.getClass().getName());
+        }
+    }
+
+    public void record(int count) {
+        events.add(count);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** Пересчитывает поток за прошедшее окно и при необходимости меняет режим продюсера. */
+    public synchronized void adjust() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - windowStart;
+        if (elapsed < windowMs || elapsed == 0) {
+            return;
+        }
+        rate = events.sumThenReset() * 1000.0 / elapsed;
+        windowStart = now;
+        if (!enabled) {
+            return;
+        }
+
+        // разные пороги на вход и выход, чтобы не переключаться на каждом колебании потока
+        Mode target = mode;
+        if (mode == Mode.LOW_LATENCY && rate >= highRate) {
+            target = Mode.THROUGHPUT;
+        } else if (mode == Mode.THROUGHPUT && rate <= lowRate) {
+            target = Mode.LOW_LATENCY;
+        }
+        if (target != mode) {
+            switchTo(target);
+        }
+    }
+
+    private void switchTo(Mode target) {
+        kafkaTemplate.flush();
+        producerFactory.updateConfigs(target == Mode.THROUGHPUT ? throughputConfig : lowLatencyConfig);
+        producerFactory.reset();
+        mode = target;
+        switches.increment();
+        logger.info("Продюсер переключён в режим {} при потоке {} событий/с", target, Math.round(rate));
+    }
+
+    private double currentSetting(String key) {
+        Map<String, Object> config = mode == Mode.THROUGHPUT ? throughputConfig : lowLatencyConfig;
+        return ((Number) config.get(key)).doubleValue();
+    }
+}
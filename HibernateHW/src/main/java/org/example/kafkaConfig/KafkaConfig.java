@@ -10,9 +10,15 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
 
+    public static final String USER_CREATED_TOPIC = "user-created-event-topic";
+    public static final String USER_DELETED_TOPIC = "user-delete-event-topic";
+    public static final String USER_UPDATED_TOPIC = "user-updated-event-topic";
+    // Последнее состояние пользователя по ключу userId, удаление - tombstone
+    public static final String USER_SNAPSHOT_TOPIC = "user-snapshot";
+
     @Bean
     NewTopic userCreateEventTopic(){
-        return TopicBuilder.name("user-created-event-topic")
+        return TopicBuilder.name(USER_CREATED_TOPIC)
                 .partitions(3)
                 .replicas(3)
                 .configs(Map.of("min.insync.replicas", "2"))
@@ -20,9 +26,26 @@ public class KafkaConfig {
     }
     @Bean
     NewTopic userDeleteEventTopic(){
-        return TopicBuilder.name("user-delete-event-topic")
+        return TopicBuilder.name(USER_DELETED_TOPIC)
+                .partitions(3)
+                .replicas(3)
+                .configs(Map.of("min.insync.replicas", "2"))
+                .build();
+    }
+    @Bean
+    NewTopic userUpdateEventTopic(){
+        return TopicBuilder.name(USER_UPDATED_TOPIC)
+                .partitions(3)
+                .replicas(3)
+                .configs(Map.of("min.insync.replicas", "2"))
+                .build();
+    }
+    @Bean
+    NewTopic userSnapshotTopic(){
+        return TopicBuilder.name(USER_SNAPSHOT_TOPIC)
                 .partitions(3)
                 .replicas(3)
+                .compact()
                 .configs(Map.of("min.insync.replicas", "2"))
                 .build();
     }
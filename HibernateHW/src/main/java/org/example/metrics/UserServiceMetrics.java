@@ -0,0 +1,62 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.example.Exception.DuplicateEmailException;
+import org.example.Exception.UserNotFoundException;
+import org.example.Exception.ValidationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Таймеры с гистограммой перцентилей на каждый метод UserService
+ * и счётчики бизнес-ошибок (не найден, дубликат email, ошибка валидации).
+ */
+@Aspect
+@Component
+public class UserServiceMetrics {
+
+    static final String TIMER_NAME = "user.service";
+    static final String ERRORS_NAME = "user.service.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    public UserServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * org.example.Service.UserService+.*(..))")
+    public Object timeOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (UserNotFoundException | DuplicateEmailException | ValidationException e) {
+            outcome = e.getClass().getSimpleName();
+            errorCounter(method, outcome).increment();
+            throw e;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .description("Время выполнения операций UserService")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private Counter errorCounter(String method, String exception) {
+        return Counter.builder(ERRORS_NAME)
+                .description("Бизнес-ошибки UserService по типу исключения")
+                .tag("method", method)
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
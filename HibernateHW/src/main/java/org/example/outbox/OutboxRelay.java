@@ -0,0 +1,130 @@
+package org.example.outbox;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.Entity.OutboxEvent;
+import org.example.kafkaConfig.AdaptiveProducerBatching;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая доставка событий из user_outbox в Kafka пачками.
+ * Одновременно работает только один релей (advisory lock), чтобы сохранить порядок событий по ключу.
+ * Если брокер недоступен, события остаются в user_outbox (их видит релей на любом узле),
+ * а попытки отправки откладываются на user.outbox.broker-retry-interval-ms.
+ */
+@Component
+@ConditionalOnProperty(name = "user.outbox.relay-enabled", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LogManager.getLogger(OutboxRelay.class);
+    private static final long RELAY_LOCK_ID = 0x5553455230L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserEventOutbox userEventOutbox;
+    private final UserEventPublisher userEventPublisher;
+    private final AdaptiveProducerBatching adaptiveProducerBatching;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${user.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${user.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Value("${user.outbox.broker-retry-interval-ms:5000}")
+    private long brokerRetryIntervalMs;
+
+    private long brokerRetryAt;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, UserEventOutbox userEventOutbox,
+                       UserEventPublisher userEventPublisher, AdaptiveProducerBatching adaptiveProducerBatching,
+                       TransactionTemplate transactionTemplate) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.userEventOutbox = userEventOutbox;
+        this.userEventPublisher = userEventPublisher;
+        this.adaptiveProducerBatching = adaptiveProducerBatching;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${user.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } while (sent != null && sent == batchSize);
+        } catch (Exception e) {
+            logger.warn("Не удалось доставить события из outbox, повтор на следующем шаге: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        // Пока брокер недоступен, не берём блокировку и не читаем outbox на каждом шаге
+        if (System.currentTimeMillis() < brokerRetryAt) {
+            return 0;
+        }
+        if (!outboxEventRepository.tryLockRelay(RELAY_LOCK_ID)) {
+            return 0;
+        }
+
+        List<OutboxEvent> batch = outboxEventRepository.findBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            sendAll(batch);
+        } catch (IllegalStateException e) {
+            // Пачка остаётся в user_outbox: повтор на этом или другом узле в том же порядке
+            markBrokerUnavailable(e);
+            throw e;
+        }
+        deleteFromOutbox(batch);
+        logger.debug("Из outbox доставлено событий: {}", batch.size());
+        return batch.size();
+    }
+
+    private void sendAll(List<OutboxEvent> events) {
+        // предыдущая пачка уже подтверждена, продюсер можно безопасно пересоздать
+        adaptiveProducerBatching.adjust();
+        adaptiveProducerBatching.record(events.size());
+        try {
+            List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(events.size());
+            for (OutboxEvent outboxEvent : events) {
+                sends.add(userEventPublisher.publish(outboxEvent.getTopic(), outboxEvent.getEventKey(),
+                        userEventOutbox.readPayload(outboxEvent)));
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Отправка пачки из " + events.size() + " событий прервана", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Пачка из " + events.size() + " событий не подтверждена брокером", e);
+        }
+    }
+
+    private void deleteFromOutbox(List<OutboxEvent> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            ids.add(outboxEvent.getId());
+        }
+        outboxEventRepository.deleteByIds(ids);
+    }
+
+    private void markBrokerUnavailable(Exception e) {
+        brokerRetryAt = System.currentTimeMillis() + brokerRetryIntervalMs;
+        logger.warn("Kafka недоступна, события остаются в outbox, повтор через {} мс: {}", brokerRetryIntervalMs, e.getMessage());
+    }
+}
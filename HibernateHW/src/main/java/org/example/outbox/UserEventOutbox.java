@@ -0,0 +1,126 @@
+package org.example.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Entity.OutboxEvent;
+import org.example.event.UserCreateEvent;
+import org.example.event.UserDeleteEvent;
+import org.example.event.UserSnapshot;
+import org.example.event.UserUpdateEvent;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Пишет события пользователей в таблицу user_outbox в рамках текущей транзакции.
+ * В Kafka их доставляет {@link OutboxRelay}.
+ */
+@Component
+public class UserEventOutbox {
+
+    private static final Map<String, Class<?>> EVENT_TYPES = Map.of(
+            UserCreateEvent.class.getSimpleName(), UserCreateEvent.class,
+            UserDeleteEvent.class.getSimpleName(), UserDeleteEvent.class,
+            UserUpdateEvent.class.getSimpleName(), UserUpdateEvent.class,
+            UserSnapshot.class.getSimpleName(), UserSnapshot.class
+    );
+
+    // Запись без значения: в compacted-топике удаляет ключ
+    static final String TOMBSTONE_TYPE = "Tombstone";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_outbox (id, topic, event_key, event_type, payload, created_at) " +
+            "VALUES (nextval('user_outbox_seq'), ?, ?, ?, ?, ?)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserEventOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+                           JdbcTemplate jdbcTemplate) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, String key, Object event) {
+        outboxEventRepository.save(toOutboxEvent(topic, key, event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueTombstone(String topic, String key) {
+        outboxEventRepository.save(new OutboxEvent(topic, key, TOMBSTONE_TYPE, ""));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueTombstones(String topic, List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            rows.add(new Object[]{topic, key, TOMBSTONE_TYPE, "", createdAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    // Одна пакетная вставка на все события; id по-прежнему берутся из последовательности в порядке вставки
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <E> void enqueueAll(String topic, List<E> events, Function<E, String> keyExtractor) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (E event : events) {
+            OutboxEvent outboxEvent = toOutboxEvent(topic, keyExtractor.apply(event), event);
+            rows.add(new Object[]{
+                    outboxEvent.getTopic(),
+                    outboxEvent.getEventKey(),
+                    outboxEvent.getEventType(),
+                    outboxEvent.getPayload(),
+                    Timestamp.from(outboxEvent.getCreatedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    OutboxEvent toOutboxEvent(String topic, String key, Object event) {
+        String type = event.getClass().getSimpleName();
+        if (!EVENT_TYPES.containsKey(type)) {
+            throw new IllegalArgumentException("Неизвестный тип события: " + type);
+        }
+        try {
+            return new OutboxEvent(topic, key, type, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие " + type, e);
+        }
+    }
+
+    Object readPayload(OutboxEvent outboxEvent) {
+        if (TOMBSTONE_TYPE.equals(outboxEvent.getEventType())) {
+            return null;
+        }
+        Class<?> type = EVENT_TYPES.get(outboxEvent.getEventType());
+        if (type == null) {
+            throw new IllegalStateException("Неизвестный тип события в outbox: " + outboxEvent);
+        }
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать событие из outbox: " + outboxEvent, e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронная отправка событий в Kafka с ограничением числа неподтверждённых сообщений.
+ * Когда окно заполнено, вызывающий поток ждёт освобождения места, а по таймауту получает отказ.
+ * Порядок по ключу сохраняется, если события одного ключа отправляются из одного потока:
+ * ключ определяет партицию, а идемпотентный продюсер не переставляет сообщения внутри неё.
+ */
+@Component
+public class UserEventPublisher {
+
+    private static final Logger logger = LogManager.getLogger(UserEventPublisher.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final long acquireTimeoutMs;
+    private final ConcurrentMap<String, Timer> sendTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> ackTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserEventPublisher(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry,
+                              @Value("${user.kafka.publisher.max-in-flight:1000}") int maxInFlight,
+                              @Value("${user.kafka.publisher.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("max-in-flight должен быть положительным");
+        }
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxInFlight = maxInFlight;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.inFlight = new Semaphore(maxInFlight);
+        meterRegistry.gauge("user.events.kafka.in-flight", this, UserEventPublisher::inFlightCount);
+    }
+
+    /**
+     * Отправляет событие, не дожидаясь подтверждения брокера.
+     * Блокирует только при заполненном окне, не дольше acquire-timeout-ms.
+     */
+    public CompletableFuture<SendResult<String, Object>> publish(String topic, String key, Object payload) {
+        acquire(topic);
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, payload).completable();
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        // send - сериализация и постановка в буфер продюсера, ack - от вызова send до подтверждения брокера
+        timer(sendTimers, "user.events.kafka.send", topic).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return future.whenComplete((result, ex) -> {
+            inFlight.release();
+            if (ex == null) {
+                timer(ackTimers, "user.events.kafka.ack", topic).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else {
+                meterRegistry.counter("user.events.kafka.errors", "topic", topic).increment();
+                logger.warn("Событие с ключом {} не доставлено в топик {}: {}", key, topic, ex.getMessage());
+            }
+        });
+    }
+
+    public int inFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    private void acquire(String topic) {
+        boolean acquired;
+        try {
+            acquired = inFlight.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Ожидание отправки в топик " + topic + " прервано", e);
+        }
+        if (!acquired) {
+            meterRegistry.counter("user.events.kafka.rejected", "topic", topic).increment();
+            throw new RejectedExecutionException("Превышен лимит неподтверждённых сообщений (" + maxInFlight
+                    + "), брокер не успевает подтверждать отправку в топик " + topic);
+        }
+    }
+
+    private Timer timer(ConcurrentMap<String, Timer> timers, String name, String topic) {
+        return timers.computeIfAbsent(topic, t -> Timer.builder(name)
+                .tag("topic", t)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.repository;
+
+import org.example.Entity.OutboxEvent;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends CrudRepository<OutboxEvent, Long> {
+
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryLockRelay(@Param("lockId") long lockId);
+
+    @Query(value = "SELECT * FROM user_outbox ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<OutboxEvent> findBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
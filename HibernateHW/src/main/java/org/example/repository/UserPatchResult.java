@@ -0,0 +1,36 @@
+package org.example.repository;
+
+import org.example.Entity.User;
+
+/**
+ * Результат частичного обновления: новое состояние пользователя и значения полей до UPDATE.
+ */
+public class UserPatchResult {
+    private final User user;
+    private final String previousName;
+    private final String previousEmail;
+    private final Integer previousAge;
+
+    public UserPatchResult(User user, String previousName, String previousEmail, Integer previousAge) {
+        this.user = user;
+        this.previousName = previousName;
+        this.previousEmail = previousEmail;
+        this.previousAge = previousAge;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public String getPreviousName() {
+        return previousName;
+    }
+
+    public String getPreviousEmail() {
+        return previousEmail;
+    }
+
+    public Integer getPreviousAge() {
+        return previousAge;
+    }
+}
@@ -1,13 +1,58 @@
 package org.example.repository;
 
+import org.example.Dto.UserDto;
 import org.example.Entity.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface UserRepository extends CrudRepository<User, Integer> {
-    Optional<User> findByUserEmail(String userEmail);
-    boolean existsByUserEmail(String userEmail);
+public interface UserRepository extends CrudRepository<User, Integer>, UserRepositoryCustom {
+    // Без учёта регистра, по idx_users_email_lower
+    @Query("select case when count(u) > 0 then true else false end from User u where lower(u.userEmail) = lower(:email)")
+    boolean existsByUserEmail(@Param("email") String userEmail);
+
+    // emails - нормализованные (User.normalizeEmail); возвращаются email в том виде, в каком они сохранены
+    @Query("select u.userEmail from User u where lower(u.userEmail) in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Индексный поиск по lower(user_email) сразу в DTO; email - нормализованный
+    @Query("select new org.example.Dto.UserDto(u.userId, u.userName, u.userAge, u.userEmail, u.userCreatedAt, u.version) " +
+            "from User u where lower(u.userEmail) = :email")
+    Optional<UserDto> findDtoByNormalizedEmail(@Param("email") String normalizedEmail);
+
+    // Серверный курсор: строки читаются пачками по fetch size и сразу попадают в DTO, минуя контекст персистентности
+    @Query("select new org.example.Dto.UserDto(u.userId, u.userName, u.userAge, u.userEmail, u.userCreatedAt) " +
+            "from User u order by u.userId")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<UserDto> streamAllAsDto();
+
+    // Только email и тем же серверным курсором: для построения фильтра Блума
+    @Query("select u.userEmail from User u")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamAllEmails();
+
+    // Чтение сразу в DTO: без управляемой сущности, снимка для dirty checking и flush при коммите
+    @Query("select new org.example.Dto.UserDto(u.userId, u.userName, u.userAge, u.userEmail, u.userCreatedAt, u.version) " +
+            "from User u where u.userId = :id")
+    Optional<UserDto> findDtoById(@Param("id") int id);
+
+    @Query("select new org.example.Dto.UserDto(u.userId, u.userName, u.userAge, u.userEmail, u.userCreatedAt, u.version) " +
+            "from User u order by u.userId")
+    List<UserDto> findAllAsDto();
+
+    // Мульти-выборка сразу в DTO вместе с версией: сущности не попадают в контекст персистентности
+    @Query("select new org.example.Dto.UserDto(u.userId, u.userName, u.userAge, u.userEmail, u.userCreatedAt, u.version) " +
+            "from User u where u.userId in :ids")
+    List<UserDto> findAllAsDtoByIdIn(@Param("ids") Collection<Integer> ids);
 }
\ No newline at end of file
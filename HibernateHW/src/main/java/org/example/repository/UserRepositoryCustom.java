@@ -0,0 +1,33 @@
+package org.example.repository;
+
+import org.example.Dto.UserDto;
+import org.example.Dto.UserSearchFilter;
+import org.example.Entity.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    // Keyset-выборка: до limit пользователей с user_id > afterId по возрастанию id, сразу в UserDto без сущностей
+    List<UserDto> findPage(int afterId, int limit, UserSearchFilter filter);
+
+    // Вставка пачками JDBC-батча; контекст персистентности очищается после каждой пачки
+    List<User> insertAll(List<User> users);
+
+    // INSERT ... ON CONFLICT по lower(user_email) DO NOTHING: пусто, если email уже занят (без учёта регистра)
+    Optional<User> insertIfEmailAbsent(User user);
+
+    // Один UPDATE только по переданным (не null) полям при совпадении версии; пусто - нет строки или версия другая
+    Optional<UserPatchResult> patch(int id, long expectedVersion, String name, Integer age, String email);
+
+    // DELETE ... RETURNING user_email: email удалённого пользователя или пусто, если такого id нет
+    Optional<String> deleteReturningEmail(int id);
+
+    // DELETE ... WHERE user_id IN (...) RETURNING: id -> email только для реально удалённых строк
+    Map<Integer, String> deleteAllReturningEmails(Collection<Integer> ids);
+
+    // Сбрасывает отложенные изменения, чтобы нарушения ограничений всплыли здесь, а не при коммите
+    void flush();
+}
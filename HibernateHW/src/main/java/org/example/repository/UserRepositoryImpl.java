@@ -0,0 +1,239 @@
+package org.example.repository;
+
+import org.example.Dto.UserDto;
+import org.example.Dto.UserSearchFilter;
+import org.example.Entity.User;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String INSERT_IF_EMAIL_ABSENT_SQL =
+            "INSERT INTO users (user_id, user_name, user_email, user_age, user_created_at, user_version) " +
+            "VALUES (:id, :name, :email, :age, :createdAt, 0) " +
+            "ON CONFLICT ((lower(user_email))) DO NOTHING " +
+            "RETURNING user_id";
+
+    private static final String DELETE_RETURNING_EMAIL_SQL =
+            "DELETE FROM users WHERE user_id = :id RETURNING user_email";
+
+    private static final String DELETE_ALL_RETURNING_EMAILS_SQL =
+            "DELETE FROM users WHERE user_id IN (:ids) RETURNING user_id, user_email";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+    @Override
+    public List<UserDto> findPage(int afterId, int limit, UserSearchFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserDto> query = cb.createQuery(UserDto.class);
+        Root<User> user = query.from(User.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(user.get("userId"), afterId));
+        if (filter != null) {
+            if (filter.getName() != null && !filter.getName().trim().isEmpty()) {
+                predicates.add(cb.like(cb.lower(user.get("userName")),
+                        "%" + escapeLike(filter.getName().trim().toLowerCase()) + "%", '\\'));
+            }
+            if (filter.getMinAge() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(user.get("userAge"), filter.getMinAge()));
+            }
+            if (filter.getMaxAge() != null) {
+                predicates.add(cb.lessThanOrEqualTo(user.get("userAge"), filter.getMaxAge()));
+            }
+            // по idx_users_created_at
+            if (filter.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(user.get("userCreatedAt"), filter.getCreatedFrom()));
+            }
+            if (filter.getCreatedTo() != null) {
+                predicates.add(cb.lessThan(user.get("userCreatedAt"), filter.getCreatedTo()));
+            }
+        }
+
+        query.select(cb.construct(UserDto.class, user.get("userId"), user.get("userName"), user.get("userAge"),
+                        user.get("userEmail"), user.get("userCreatedAt"), user.get("version")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(user.get("userId")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<User> insertAll(List<User> users) {
+        for (int i = 0; i < users.size(); i++) {
+            entityManager.persist(users.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return users;
+    }
+
+    @Override
+    public Optional<User> insertIfEmailAbsent(User user) {
+        // id берём из того же пула последовательности, что и persist(), чтобы не тратить nextval на каждую вставку
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        Serializable id = session.getFactory().getMetamodel().entityPersister(User.class)
+                .getIdentifierGenerator().generate(session, user);
+
+        List<?> inserted = entityManager.createNativeQuery(INSERT_IF_EMAIL_ABSENT_SQL)
+                .setParameter("id", id)
+                .setParameter("name", user.getUserName())
+                .setParameter("email", user.getUserEmail())
+                .setParameter("age", user.getUserAge())
+                .setParameter("createdAt", user.getUserCreatedAt())
+                .getResultList();
+        if (inserted.isEmpty()) {
+            return Optional.empty();
+        }
+        user.setUserId((Integer) id);
+        user.setVersion(0L);
+        return Optional.of(user);
+    }
+
+    @Override
+    public Optional<UserPatchResult> patch(int id, long expectedVersion, String name, Integer age, String email) {
+        // Прежние значения берутся подзапросом в том же UPDATE, чтобы событие несло только реально изменённые поля
+        StringBuilder sql = new StringBuilder("UPDATE users u SET ");
+        if (name != null) {
+            sql.append("user_name = :name, ");
+        }
+        if (age != null) {
+            sql.append("user_age = :age, ");
+        }
+        if (email != null) {
+            sql.append("user_email = :email, ");
+        }
+        sql.append("user_version = u.user_version + 1 ")
+                .append("FROM (SELECT user_name, user_email, user_age FROM users WHERE user_id = :id) prev ")
+                .append("WHERE u.user_id = :id AND u.user_version = :version ")
+                .append("RETURNING u.user_name, u.user_email, u.user_age, u.user_created_at, u.user_version, ")
+                .append("prev.user_name, prev.user_email, prev.user_age");
+
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setParameter("id", id)
+                .setParameter("version", expectedVersion);
+        if (name != null) {
+            query.setParameter("name", name);
+        }
+        if (age != null) {
+            query.setParameter("age", age);
+        }
+        if (email != null) {
+            query.setParameter("email", email);
+        }
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] row = (Object[]) rows.get(0);
+        User user = new User((String) row[0], ((Number) row[2]).intValue(), (String) row[1],
+                toInstant(row[3]));
+        user.setUserId(id);
+        user.setVersion(((Number) row[4]).longValue());
+        evictAfterCommit(id);
+        return Optional.of(new UserPatchResult(user, (String) row[5], (String) row[6], ((Number) row[7]).intValue()));
+    }
+
+    @Override
+    public void flush() {
+        entityManager.flush();
+    }
+
+    @Override
+    public Optional<String> deleteReturningEmail(int id) {
+        List<?> deleted = entityManager.createNativeQuery(DELETE_RETURNING_EMAIL_SQL)
+                .setParameter("id", id)
+                .getResultList();
+        if (deleted.isEmpty()) {
+            return Optional.empty();
+        }
+        evictAfterCommit(id);
+        return Optional.of((String) deleted.get(0));
+    }
+
+    @Override
+    public Map<Integer, String> deleteAllReturningEmails(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(DELETE_ALL_RETURNING_EMAILS_SQL)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Integer, String> deleted = new LinkedHashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            deleted.put(((Number) row[0]).intValue(), (String) row[1]);
+        }
+        if (!deleted.isEmpty()) {
+            evictAfterCommit(deleted.keySet());
+        }
+        return deleted;
+    }
+
+    // Нативные UPDATE/DELETE идут мимо кэша второго уровня
+    private void evictAfterCommit(int id) {
+        evictAfterCommit(List.of(id));
+    }
+
+    private void evictAfterCommit(Collection<Integer> ids) {
+        Runnable evict = () -> {
+            Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+            for (Integer id : ids) {
+                cache.evictEntityData(User.class, id);
+            }
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private static Instant toInstant(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toInstant();
+        }
+        return ((OffsetDateTime) value).toInstant();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.Dto.UserChangeDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Раздаёт изменения пользователей SSE-подписчикам GET /users/changes.
+ * Источник один - события UserServiceImpl после коммита; JSON события сериализуется один раз на все подписки.
+ * У каждого подписчика свой ограниченный буфер: если клиент не успевает читать и буфер переполнился,
+ * подписка закрывается, остальные подписчики этого не замечают. Клиент переподключается сам.
+ */
+@Component
+public class UserChangeBroadcaster {
+
+    private static final Logger logger = LogManager.getLogger(UserChangeBroadcaster.class);
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final Counter overflows;
+
+    @Autowired
+    public UserChangeBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${user.changes.buffer-size:256}") int bufferSize,
+                                 @Value("${user.changes.timeout-ms:1800000}") long timeoutMs,
+                                 @Value("${user.changes.sender-threads:4}") int senderThreads) {
+        this(objectMapper, meterRegistry, bufferSize, timeoutMs, Executors.newFixedThreadPool(senderThreads, senderThreadFactory()));
+    }
+
+    UserChangeBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry, int bufferSize, long timeoutMs,
+                          Executor executor) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("buffer-size должен быть положительным");
+        }
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.overflows = meterRegistry.counter("user.changes.overflows");
+        meterRegistry.gaugeCollectionSize("user.changes.subscribers", Tags.empty(), subscribers);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.detach());
+        logger.debug("Новый подписчик на изменения пользователей, всего: {}", subscribers.size());
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChange(UserChangeDto change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            logger.error("Не удалось сериализовать изменение пользователей ID: {}",
+                    change.getUserId() != null ? change.getUserId() : change.getUserIds(), e);
+            return;
+        }
+        broadcast(Frame.event(String.valueOf(sequence.incrementAndGet()), change.getType().name().toLowerCase(), data));
+    }
+
+    // Комментарий раз в интервал держит соединение через прокси и выявляет отключившихся клиентов
+    @Scheduled(fixedDelayString = "${user.changes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            broadcast(Frame.PING);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(Subscriber::close);
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void broadcast(Frame frame) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    private static ThreadFactory senderThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "user-changes-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Содержимое кадра SSE с уже сериализованными данными. Builder собирается заново при каждой отправке:
+     * SseEventBuilder.build() дописывает перевод строки при каждом вызове, поэтому один builder
+     * нельзя отдать нескольким подписчикам.
+     */
+    private static final class Frame {
+        static final Frame PING = new Frame(null, null, null);
+
+        private final String id;
+        private final String name;
+        private final String data;
+
+        private Frame(String id, String name, String data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+
+        static Frame event(String id, String name, String data) {
+            return new Frame(id, name, data);
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (data == null) {
+                return SseEmitter.event().comment("ping");
+            }
+            return SseEmitter.event().id(id).name(name).data(data, TEXT_PLAIN_UTF8);
+        }
+    }
+
+    /** Подписчик со своим буфером; отправку ведёт не больше одной задачи пула за раз. */
+    private final class Subscriber implements Runnable {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Frame frame) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                overflows.increment();
+                logger.warn("Подписчик не успевает читать изменения, буфер из {} событий переполнен - отключаем", bufferSize);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            try {
+                Frame frame;
+                while (!closed && (frame = queue.poll()) != null) {
+                    emitter.send(frame.toEvent());
+                }
+            } catch (Exception e) {
+                logger.debug("Подписчик отключился: {}", e.getMessage());
+                detach();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    close();
+                }
+            }
+        }
+
+        void close() {
+            detach();
+            emitter.complete();
+        }
+
+        void detach() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.Service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.Dto.CreateUserRequest;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение скорости вставки: POST /users по одному пользователю против POST /users/batch.
+ * Требует Docker; запускается профилем benchmark: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "user.outbox.relay-enabled=false",
+        "spring.kafka.admin.auto-create=false",
+        "user.cache.invalidation-enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class UserBatchInsertBenchmarkTest {
+
+    private static final Logger logger = LogManager.getLogger(UserBatchInsertBenchmarkTest.class);
+    private static final int ROWS = 5_000;
+    // 5000 отдельных транзакций против пачек по batch_size: запас, чтобы тест не зависел от шума на машине
+    private static final int MIN_SPEEDUP = 2;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl()
+                + (POSTGRES.getJdbcUrl().contains("?") ? "&" : "?") + "reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void createUsers_ShouldInsertFasterThanSingleUserPath() {
+        // Прогрев обоих путей, чтобы не мерить JIT и инициализацию пула
+        insertOneByOne("warmup-single", 200);
+        userService.createUsers(requests("warmup-batch", 200));
+
+        long singleStart = System.nanoTime();
+        insertOneByOne("single", ROWS);
+        long singleNanos = System.nanoTime() - singleStart;
+
+        long batchStart = System.nanoTime();
+        userService.createUsers(requests("batch", ROWS));
+        long batchNanos = System.nanoTime() - batchStart;
+
+        logger.info("По одному: {} строк/с", rowsPerSecond(singleNanos));
+        logger.info("Пачкой:    {} строк/с", rowsPerSecond(batchNanos));
+
+        assertEquals(400 + 2L * ROWS, userRepository.count());
+        assertTrue(batchNanos * MIN_SPEEDUP < singleNanos,
+                "Пакетная вставка должна быть хотя бы в " + MIN_SPEEDUP + " раза быстрее: пачкой "
+                        + rowsPerSecond(batchNanos) + " строк/с, по одному " + rowsPerSecond(singleNanos) + " строк/с");
+    }
+
+    private void insertOneByOne(String prefix, int count) {
+        for (CreateUserRequest request : requests(prefix, count)) {
+            userService.createUser(request);
+        }
+    }
+
+    private static List<CreateUserRequest> requests(String prefix, int count) {
+        List<CreateUserRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new CreateUserRequest("user" + i, 30, prefix + i + "@bench.com"));
+        }
+        return requests;
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
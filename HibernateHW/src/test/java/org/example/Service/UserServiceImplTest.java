@@ -1,12 +1,27 @@
 package org.example.Service;
 
+import org.example.Dto.BulkDeleteResultDto;
 import org.example.Dto.CreateUserRequest;
+import org.example.Dto.UserChangeDto;
 import org.example.Dto.UpdateUserRequest;
+import org.example.Dto.UserBatchDto;
 import org.example.Dto.UserDto;
+import org.example.Dto.UserPageDto;
+import org.example.Dto.UserSearchFilter;
 import org.example.Entity.User;
 import org.example.Exception.DuplicateEmailException;
 import org.example.Exception.UserNotFoundException;
+import org.example.Exception.UserVersionConflictException;
 import org.example.Exception.ValidationException;
+import org.example.cache.UserCache;
+import org.example.cache.UserEmailBloomFilter;
+import org.example.event.UserCreateEvent;
+import org.example.event.UserDeleteEvent;
+import org.example.event.UserSnapshot;
+import org.example.event.UserUpdateEvent;
+import org.example.kafkaConfig.KafkaConfig;
+import org.example.outbox.UserEventOutbox;
+import org.example.repository.UserPatchResult;
 import org.example.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,13 +30,23 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,18 +58,28 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserEventOutbox userEventOutbox;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserEmailBloomFilter emailFilter;
+
     @InjectMocks
     private UserServiceImpl userService;
 
     private User testUser;
     private CreateUserRequest createRequest;
     private UpdateUserRequest updateRequest;
-    private static final DateTimeFormatter DATE_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @BeforeEach
     void setUp() {
-        String createdAt = LocalDateTime.now().format(DATE_FORMATTER);
+        Instant createdAt = Instant.now();
         testUser = new User("test", 30, "test@test.com", createdAt);
         testUser.setUserId(1);
 
@@ -58,8 +93,7 @@ class UserServiceImplTest {
 
     @Test
     void createUser_ValidRequest_ShouldReturnUserDto() {
-        when(userRepository.existsByEmail("test@test.com")).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.insertIfEmailAbsent(any(User.class))).thenReturn(Optional.of(testUser));
 
         UserDto result = userService.createUser(createRequest);
 
@@ -70,7 +104,7 @@ class UserServiceImplTest {
         assertNotNull(result.getCreatedAt());
 
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(userRepository).insertIfEmailAbsent(userCaptor.capture());
         User savedUser = userCaptor.getValue();
 
         assertEquals("test", savedUser.getUserName());
@@ -78,18 +112,20 @@ class UserServiceImplTest {
         assertEquals("test@test.com", savedUser.getUserEmail());
         assertNotNull(savedUser.getUserCreatedAt());
 
-        verify(userRepository).existsByEmail("test@test.com");
+        verify(userRepository, never()).existsByUserEmail(anyString());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userEventOutbox).enqueue(eq(KafkaConfig.USER_CREATED_TOPIC), eq("1"), any(UserCreateEvent.class));
     }
 
     @Test
     void createUser_DuplicateEmail_ShouldThrowException() {
-        when(userRepository.existsByEmail("test@test.com")).thenReturn(true);
+        when(userRepository.insertIfEmailAbsent(any(User.class))).thenReturn(Optional.empty());
 
         assertThrows(DuplicateEmailException.class,
                 () -> userService.createUser(createRequest));
 
-        verify(userRepository).existsByEmail("test@test.com");
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository).insertIfEmailAbsent(any(User.class));
+        verifyNoInteractions(userEventOutbox);
     }
 
     @Test
@@ -99,8 +135,7 @@ class UserServiceImplTest {
         assertThrows(ValidationException.class,
                 () -> userService.createUser(createRequest));
 
-        verify(userRepository, never()).existsByEmail(anyString());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertIfEmailAbsent(any(User.class));
     }
 
     @Test
@@ -110,13 +145,82 @@ class UserServiceImplTest {
         assertThrows(ValidationException.class,
                 () -> userService.createUser(createRequest));
 
-        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository, never()).insertIfEmailAbsent(any(User.class));
+    }
+
+    @Test
+    void createUsers_ValidBatch_ShouldInsertAllAndEnqueueEvents() {
+        CreateUserRequest second = new CreateUserRequest("test2", 25, "test2@test.com");
+        when(userRepository.findExistingEmails(anyList())).thenReturn(Collections.emptyList());
+        when(userRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            for (int i = 0; i < users.size(); i++) {
+                users.get(i).setUserId(i + 1);
+            }
+            return users;
+        });
+
+        List<UserDto> result = userService.createUsers(Arrays.asList(createRequest, second));
+
+        assertEquals(2, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals("test2@test.com", result.get(1).getEmail());
+        verify(userRepository).findExistingEmails(Arrays.asList("test@test.com", "test2@test.com"));
         verify(userRepository, never()).save(any(User.class));
+        verify(userEventOutbox).enqueueAll(eq(KafkaConfig.USER_CREATED_TOPIC), anyList(), any());
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) -> event instanceof UserChangeDto
+                && ((UserChangeDto) event).getType() == UserChangeDto.Type.CREATED
+                && ((UserChangeDto) event).getUserIds().equals(List.of(1, 2))
+                && ((UserChangeDto) event).getUsers().size() == 2));
+    }
+
+    @Test
+    void createUsers_DuplicateEmailInsideBatch_ShouldThrowException() {
+        CreateUserRequest duplicate = new CreateUserRequest("test2", 25, "test@test.com");
+
+        assertThrows(DuplicateEmailException.class,
+                () -> userService.createUsers(Arrays.asList(createRequest, duplicate)));
+
+        verify(userRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void createUsers_DuplicateEmailDifferentCase_ShouldThrowException() {
+        CreateUserRequest duplicate = new CreateUserRequest("test2", 25, "TEST@test.com");
+
+        assertThrows(DuplicateEmailException.class,
+                () -> userService.createUsers(Arrays.asList(createRequest, duplicate)));
+
+        verify(userRepository, never()).findExistingEmails(anyList());
+        verify(userRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void createUsers_ExistingEmail_ShouldThrowException() {
+        when(userRepository.findExistingEmails(anyList())).thenReturn(Collections.singletonList("test@test.com"));
+
+        assertThrows(DuplicateEmailException.class,
+                () -> userService.createUsers(Collections.singletonList(createRequest)));
+
+        verify(userRepository, never()).insertAll(anyList());
+        verifyNoInteractions(userEventOutbox);
+    }
+
+    @Test
+    void createUsers_InvalidRequestInBatch_ShouldThrowValidationException() {
+        CreateUserRequest invalid = new CreateUserRequest("test2", 100, "test2@test.com");
+
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> userService.createUsers(Arrays.asList(createRequest, invalid)));
+
+        assertTrue(exception.getMessage().startsWith("Пользователь #1"));
+        verify(userRepository, never()).findExistingEmails(anyList());
     }
 
     @Test
     void getUserById_ExistingUser_ShouldReturnUserDto() {
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
+        UserDto testDto = new UserDto(1, "test", 30, "test@test.com", Instant.parse("2024-01-01T00:00:00Z"), 0L);
+        when(userRepository.findDtoById(1)).thenReturn(Optional.of(testDto));
 
         UserDto result = userService.getUserById(1);
 
@@ -125,28 +229,139 @@ class UserServiceImplTest {
         assertEquals(30, result.getAge());
         assertEquals("test@test.com", result.getEmail());
 
-        verify(userRepository).findById(1);
+        verify(userRepository).findDtoById(1);
+        verify(userRepository, never()).findById(anyInt());
+        verify(userCache).put(1, result);
+    }
+
+    @Test
+    void getUserById_CachedUser_ShouldNotHitRepository() {
+        UserDto cached = new UserDto(1, "test", 30, "test@test.com", Instant.parse("2024-01-01T00:00:00Z"));
+        when(userCache.get(1)).thenReturn(cached);
+
+        UserDto result = userService.getUserById(1);
+
+        assertSame(cached, result);
+        verify(userRepository, never()).findDtoById(anyInt());
     }
 
     @Test
     void getUserById_NonExistingUser_ShouldThrowException() {
-        when(userRepository.findById(999)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(999)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class,
                 () -> userService.getUserById(999));
 
-        verify(userRepository).findById(999);
+        verify(userRepository).findDtoById(999);
     }
 
     @Test
-    void getAllUsers_ShouldReturnListOfUserDtos() {
-        User user2 = new User("test2", 25, "test2@test.com",
-                LocalDateTime.now().format(DATE_FORMATTER));
-        user2.setUserId(2);
+    void getUserById_ConcurrentMisses_ShouldLoadOnce() throws Exception {
+        UserDto testDto = new UserDto(1, "test", 30, "test@test.com", Instant.parse("2024-01-01T00:00:00Z"), 0L);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(userRepository.findDtoById(1)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await(5, TimeUnit.SECONDS);
+            return Optional.of(testDto);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<UserDto>> results = new ArrayList<>();
+            results.add(executor.submit(() -> userService.getUserById(1)));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> userService.getUserById(1)));
+            }
+            // Все три ожидающих подписаны на загрузку первого вызова
+            while (userService.sharedIdLoadCount() < 3) {
+                Thread.onSpinWait();
+            }
+            releaseLoad.countDown();
+
+            UserDto first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<UserDto> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(userRepository, times(1)).findDtoById(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getUserByEmail_ExistingUser_ShouldQueryByNormalizedEmailAndFillCache() {
+        UserDto testDto = new UserDto(1, "test", 30, "Test@Test.com", Instant.parse("2024-01-01T00:00:00Z"), 0L);
+        when(userRepository.findDtoByNormalizedEmail("test@test.com")).thenReturn(Optional.of(testDto));
+
+        UserDto result = userService.getUserByEmail(" TEST@test.com ");
+
+        assertSame(testDto, result);
+        verify(userCache).getByEmail("test@test.com");
+        verify(userCache).put(1, testDto);
+    }
+
+    @Test
+    void getUserByEmail_CachedUser_ShouldNotHitRepository() {
+        UserDto cached = new UserDto(1, "test", 30, "test@test.com", Instant.parse("2024-01-01T00:00:00Z"));
+        when(userCache.getByEmail("test@test.com")).thenReturn(cached);
+
+        assertSame(cached, userService.getUserByEmail("Test@Test.com"));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUserByEmail_NonExistingUser_ShouldThrowException() {
+        when(userRepository.findDtoByNormalizedEmail("missing@test.com")).thenReturn(Optional.empty());
 
-        List<User> users = Arrays.asList(testUser, user2);
+        assertThrows(UserNotFoundException.class, () -> userService.getUserByEmail("missing@test.com"));
+        assertThrows(ValidationException.class, () -> userService.getUserByEmail(" "));
+    }
+
+    @Test
+    void isEmailAvailable_FilterSaysAbsent_ShouldNotHitRepository() {
+        when(emailFilter.mightContain("new@test.com")).thenReturn(false);
 
-        when(userRepository.findAll()).thenReturn(users);
+        assertTrue(userService.isEmailAvailable("New@Test.com"));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void isEmailAvailable_PossibleHit_ShouldCheckRepository() {
+        when(emailFilter.mightContain("test@test.com")).thenReturn(true);
+        when(userRepository.existsByUserEmail("test@test.com")).thenReturn(true);
+
+        assertFalse(userService.isEmailAvailable("test@test.com"));
+
+        verify(emailFilter, never()).recordFalsePositive();
+    }
+
+    @Test
+    void isEmailAvailable_FalsePositive_ShouldReturnTrueAndRecordIt() {
+        when(emailFilter.mightContain("free@test.com")).thenReturn(true);
+        when(userRepository.existsByUserEmail("free@test.com")).thenReturn(false);
+
+        assertTrue(userService.isEmailAvailable("free@test.com"));
+
+        verify(emailFilter).recordFalsePositive();
+    }
+
+    @Test
+    void isEmailAvailable_InvalidEmail_ShouldThrowValidationException() {
+        assertThrows(ValidationException.class, () -> userService.isEmailAvailable("not-an-email"));
+
+        verifyNoInteractions(emailFilter, userRepository);
+    }
+
+    @Test
+    void getAllUsers_ShouldReturnListOfUserDtos() {
+        List<UserDto> users = Arrays.asList(
+                new UserDto(1, "test", 30, "test@test.com", Instant.now(), 0L),
+                new UserDto(2, "test2", 25, "test2@test.com", Instant.now(), 0L));
+
+        when(userRepository.findAllAsDto()).thenReturn(users);
 
         List<UserDto> result = userService.getAllUsers();
 
@@ -154,25 +369,91 @@ class UserServiceImplTest {
         assertEquals("test", result.get(0).getName());
         assertEquals("test2", result.get(1).getName());
 
-        verify(userRepository).findAll();
+        verify(userRepository).findAllAsDto();
+        verify(userRepository, never()).findAll();
     }
 
     @Test
     void getAllUsers_EmptyList_ShouldReturnEmptyList() {
-        when(userRepository.findAll()).thenReturn(Collections.emptyList());
+        when(userRepository.findAllAsDto()).thenReturn(Collections.emptyList());
 
         List<UserDto> result = userService.getAllUsers();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(userRepository).findAll();
+        verify(userRepository).findAllAsDto();
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void getUsersPage_MoreRowsThanLimit_ShouldReturnNextCursor() {
+        UserDto user1 = new UserDto(1, "test", 30, "test@test.com", Instant.now(), 0L);
+        UserDto user2 = new UserDto(2, "test2", 25, "test2@test.com", Instant.now(), 0L);
+        UserSearchFilter filter = new UserSearchFilter();
+
+        when(userRepository.findPage(0, 2, filter)).thenReturn(Arrays.asList(user1, user2));
+
+        UserPageDto page = userService.getUsersPage(null, 1, filter);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(1, page.getItems().get(0).getId());
+        assertNotNull(page.getNextCursor());
+
+        when(userRepository.findPage(1, 2, filter)).thenReturn(Collections.singletonList(user2));
+
+        UserPageDto nextPage = userService.getUsersPage(page.getNextCursor(), 1, filter);
+
+        assertEquals(1, nextPage.getItems().size());
+        assertEquals(2, nextPage.getItems().get(0).getId());
+        assertNull(nextPage.getNextCursor());
+    }
+
+    @Test
+    void getUsersPage_CreatedRangeReversed_ShouldThrowValidationException() {
+        Instant now = Instant.now();
+        UserSearchFilter filter = new UserSearchFilter(null, null, null, now, now.minusSeconds(60));
+
+        assertThrows(ValidationException.class, () -> userService.getUsersPage(null, 10, filter));
+
+        verify(userRepository, never()).findPage(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void getUsersPage_InvalidCursor_ShouldThrowValidationException() {
+        assertThrows(ValidationException.class,
+                () -> userService.getUsersPage("not-a-cursor", 10, null));
+
+        verify(userRepository, never()).findPage(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void getUsersPage_InvalidLimit_ShouldThrowValidationException() {
+        assertThrows(ValidationException.class,
+                () -> userService.getUsersPage(null, 0, null));
+        assertThrows(ValidationException.class,
+                () -> userService.getUsersPage(null, 501, null));
+
+        verify(userRepository, never()).findPage(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void exportUsers_ShouldPassEveryRowToSink() {
+        UserDto first = new UserDto(1, "test", 30, "test@test.com", Instant.parse("2024-01-01T00:00:00Z"));
+        UserDto second = new UserDto(2, "test2", 25, "test2@test.com", Instant.parse("2024-01-01T00:00:00Z"));
+        when(userRepository.streamAllAsDto()).thenReturn(Stream.of(first, second));
+
+        List<UserDto> exported = new ArrayList<>();
+        long count = userService.exportUsers(exported::add);
+
+        assertEquals(2, count);
+        assertEquals(Arrays.asList(first, second), exported);
+        verify(userRepository, never()).findAll();
     }
 
     @Test
     void updateUser_ValidUpdate_ShouldReturnUpdatedUserDto() {
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(userRepository.existsByEmail("new@email.com")).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         updateRequest.setName("new name");
@@ -191,6 +472,10 @@ class UserServiceImplTest {
         assertEquals(20, updatedUser.getUserAge());
         assertEquals("new@email.com", updatedUser.getUserEmail());
         assertEquals(1, updatedUser.getUserId());
+        verify(userRepository).flush();
+        verify(userCache).invalidateAfterCommit(1);
+        verify(userEventOutbox).enqueue(eq(KafkaConfig.USER_UPDATED_TOPIC), eq("1"), any(UserUpdateEvent.class));
+        verify(userRepository, never()).existsByUserEmail(anyString());
     }
 
     @Test
@@ -209,9 +494,30 @@ class UserServiceImplTest {
 
         User updatedUser = userCaptor.getValue();
         assertEquals("name", updatedUser.getUserName());
-        assertEquals(0, updatedUser.getUserAge());
+        assertEquals(30, updatedUser.getUserAge());
         assertEquals("test@test.com", updatedUser.getUserEmail());
         assertEquals(1, updatedUser.getUserId());
+
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(userEventOutbox).enqueue(eq(KafkaConfig.USER_UPDATED_TOPIC), eq("1"), eventCaptor.capture());
+        UserUpdateEvent event = (UserUpdateEvent) eventCaptor.getValue();
+        assertEquals("name", event.getUserName());
+        assertNull(event.getUserAge());
+        assertNull(event.getUserEmail());
+        verify(userEventOutbox).enqueue(eq(KafkaConfig.USER_SNAPSHOT_TOPIC), eq("1"), any(UserSnapshot.class));
+    }
+
+    @Test
+    void updateUser_NothingChanged_ShouldNotPublishEvents() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        updateRequest.setName("test");
+        updateRequest.setAge(30);
+
+        userService.updateUser(1, updateRequest);
+
+        verify(userEventOutbox, never()).enqueue(anyString(), anyString(), any());
     }
 
     @Test
@@ -228,15 +534,15 @@ class UserServiceImplTest {
     @Test
     void updateUser_DuplicateEmail_ShouldThrowException() {
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(userRepository.existsByEmail("existing@email.com")).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(userRepository).flush();
 
         updateRequest.setEmail("existing@email.com");
 
         assertThrows(DuplicateEmailException.class,
                 () -> userService.updateUser(1, updateRequest));
 
-        verify(userRepository).existsByEmail("existing@email.com");
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository).flush();
+        verify(userRepository, never()).existsByUserEmail(anyString());
     }
 
 
@@ -253,29 +559,191 @@ class UserServiceImplTest {
 
         assertNotNull(result);
         verify(userRepository).save(any(User.class));
-        verify(userRepository, never()).existsByEmail("test@test.com");
+        verify(userRepository, never()).existsByUserEmail("test@test.com");
+        verify(userRepository).flush();
     }
 
     @Test
-    void deleteUser_ExistingUser_ShouldCallDelete() {
+    void updateUser_ConcurrentModification_ShouldThrowConflict() {
+        testUser.setVersion(3L);
+        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
+        doThrow(new ObjectOptimisticLockingFailureException(User.class, 1)).when(userRepository).flush();
+
+        updateRequest.setName("new name");
+
+        UserVersionConflictException exception = assertThrows(UserVersionConflictException.class,
+                () -> userService.updateUser(1, updateRequest));
+
+        assertTrue(exception.getMessage().contains("версия 3"));
+        verify(userCache, never()).invalidateAfterCommit(anyInt());
+        verify(userEventOutbox, never()).enqueue(anyString(), anyString(), any());
+    }
+
+    @Test
+    void patchUser_ShouldUpdateInOneStatementAndPublishOnlyChangedFields() {
+        User patched = new User("new name", 30, "test@test.com", Instant.now());
+        patched.setUserId(1);
+        patched.setVersion(4L);
+        when(userRepository.patch(1, 3L, "new name", 30, null))
+                .thenReturn(Optional.of(new UserPatchResult(patched, "test", "test@test.com", 30)));
+
+        updateRequest.setName(" new name ");
+        updateRequest.setAge(30);
+
+        UserDto result = userService.patchUser(1, 3L, updateRequest);
+
+        assertEquals("new name", result.getName());
+        assertEquals(4L, result.getVersion());
+        verify(userRepository, never()).findById(anyInt());
+        verify(userCache).invalidateAfterCommit(1);
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(userEventOutbox).enqueue(eq(KafkaConfig.USER_UPDATED_TOPIC), eq("1"), eventCaptor.capture());
+        UserUpdateEvent event = (UserUpdateEvent) eventCaptor.getValue();
+        assertEquals("new name", event.getUserName());
+        assertNull(event.getUserAge());
+    }
+
+    @Test
+    void patchUser_StaleVersion_ShouldThrowConflict() {
+        when(userRepository.patch(1, 2L, "name", null, null)).thenReturn(Optional.empty());
         when(userRepository.existsById(1)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(1);
+
+        updateRequest.setName("name");
+
+        assertThrows(UserVersionConflictException.class, () -> userService.patchUser(1, 2L, updateRequest));
+        verify(userEventOutbox, never()).enqueue(anyString(), anyString(), any());
+    }
+
+    @Test
+    void patchUser_MissingUser_ShouldThrowNotFound() {
+        when(userRepository.patch(7, 0L, "name", null, null)).thenReturn(Optional.empty());
+        when(userRepository.existsById(7)).thenReturn(false);
+
+        updateRequest.setName("name");
+
+        assertThrows(UserNotFoundException.class, () -> userService.patchUser(7, 0L, updateRequest));
+    }
+
+    @Test
+    void patchUser_DuplicateEmail_ShouldThrowDuplicateEmail() {
+        when(userRepository.patch(1, 0L, null, null, "taken@test.com"))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        updateRequest.setEmail("taken@test.com");
+
+        assertThrows(DuplicateEmailException.class, () -> userService.patchUser(1, 0L, updateRequest));
+    }
+
+    @Test
+    void deleteUser_ExistingUser_ShouldCallDelete() {
+        when(userRepository.deleteReturningEmail(1)).thenReturn(Optional.of("test@test.com"));
 
         userService.deleteUser(1);
 
-        verify(userRepository).existsById(1);
-        verify(userRepository).deleteById(1);
+        verify(userRepository).deleteReturningEmail(1);
+        verify(userRepository, never()).findById(anyInt());
+        verify(userRepository, never()).deleteById(anyInt());
+        verify(userCache).invalidateAfterCommit(1);
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(userEventOutbox).enqueue(eq(KafkaConfig.USER_DELETED_TOPIC), eq("1"), eventCaptor.capture());
+        assertEquals("test@test.com", ((UserDeleteEvent) eventCaptor.getValue()).getUserEmail());
+        verify(userEventOutbox).enqueueTombstone(KafkaConfig.USER_SNAPSHOT_TOPIC, "1");
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof UserChangeDto
+                && ((UserChangeDto) event).getType() == UserChangeDto.Type.DELETED
+                && ((UserChangeDto) event).getUserId() == 1));
     }
 
     @Test
     void deleteUser_NonExistingUser_ShouldThrowException() {
-        when(userRepository.existsById(999)).thenReturn(false);
+        when(userRepository.deleteReturningEmail(999)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class,
                 () -> userService.deleteUser(999));
 
-        verify(userRepository).existsById(999);
-        verify(userRepository, never()).deleteById(anyInt());
+        verify(userRepository).deleteReturningEmail(999);
+        verifyNoInteractions(userEventOutbox);
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    void getUsersByIds_ShouldServeCacheHitsAndLoadRestInOneQuery() {
+        UserDto cached = new UserDto(1, "Cached", 20, "cached@test.com", Instant.parse("2024-01-01T00:00:00Z"));
+        UserDto loaded = new UserDto(3, "Loaded", 30, "loaded@test.com", Instant.parse("2024-01-01T00:00:00Z"), 0L);
+        when(userCache.get(1)).thenReturn(cached);
+        when(userRepository.findAllAsDtoByIdIn(List.of(3, 2))).thenReturn(List.of(loaded));
+
+        UserBatchDto result = userService.getUsersByIds(Arrays.asList(1, 3, 2, 3));
+
+        assertEquals(List.of(cached, loaded), result.getUsers());
+        assertEquals(List.of(2), result.getNotFound());
+        verify(userRepository, never()).findById(anyInt());
+        verify(userCache).put(3, loaded);
+    }
+
+    @Test
+    void getUsersByIds_AllCached_ShouldNotQueryDatabase() {
+        UserDto cached = new UserDto(1, "Cached", 20, "cached@test.com", Instant.parse("2024-01-01T00:00:00Z"));
+        when(userCache.get(1)).thenReturn(cached);
+
+        UserBatchDto result = userService.getUsersByIds(List.of(1));
+
+        assertEquals(List.of(cached), result.getUsers());
+        assertTrue(result.getNotFound().isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersByIds_EmptyList_ShouldThrowValidationException() {
+        assertThrows(ValidationException.class, () -> userService.getUsersByIds(Collections.emptyList()));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteUsers_ShouldDeleteInOneStatementAndReportMissingIds() {
+        when(userRepository.deleteAllReturningEmails(List.of(1, 2, 3)))
+                .thenReturn(Map.of(1, "a@test.com", 3, "c@test.com"));
+
+        BulkDeleteResultDto result = userService.deleteUsers(Arrays.asList(1, 2, 3, 1));
+
+        assertEquals(List.of(1, 3), result.getDeleted());
+        assertEquals(List.of(2), result.getNotFound());
+        verify(userRepository, never()).deleteReturningEmail(anyInt());
+        verify(userCache).invalidateAllAfterCommit(List.of(1, 3));
+        ArgumentCaptor<List<UserDeleteEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(userEventOutbox).enqueueAll(eq(KafkaConfig.USER_DELETED_TOPIC), eventsCaptor.capture(), any());
+        assertEquals(2, eventsCaptor.getValue().size());
+        assertEquals("c@test.com", eventsCaptor.getValue().get(1).getUserEmail());
+        verify(userEventOutbox).enqueueTombstones(KafkaConfig.USER_SNAPSHOT_TOPIC, List.of("1", "3"));
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) -> event instanceof UserChangeDto
+                && ((UserChangeDto) event).getType() == UserChangeDto.Type.DELETED
+                && ((UserChangeDto) event).getUserIds().equals(List.of(1, 3))));
+    }
+
+    @Test
+    void deleteUsers_LargeList_ShouldDeleteInChunks() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            ids.add(i);
+        }
+        when(userRepository.deleteAllReturningEmails(anyList())).thenReturn(Map.of());
+
+        BulkDeleteResultDto result = userService.deleteUsers(ids);
+
+        verify(userRepository, times(3)).deleteAllReturningEmails(anyList());
+        assertEquals(2500, result.getNotFound().size());
+        verifyNoInteractions(userEventOutbox);
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    void deleteUsers_EmptyOrTooLargeList_ShouldThrowValidationException() {
+        assertThrows(ValidationException.class, () -> userService.deleteUsers(Collections.emptyList()));
+        assertThrows(ValidationException.class, () -> userService.deleteUsers(Collections.nCopies(10_001, 1)));
+        assertThrows(ValidationException.class, () -> userService.deleteUsers(Arrays.asList(1, null)));
+
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -300,20 +768,21 @@ class UserServiceImplTest {
 
     @Test
     void printAllUsers_ShouldNotThrowException() {
-        when(userRepository.findAll()).thenReturn(Collections.singletonList(testUser));
+        when(userRepository.findAllAsDto()).thenReturn(Collections.singletonList(
+                new UserDto(1, "test", 30, "test@test.com", Instant.now(), 0L)));
 
         assertDoesNotThrow(() -> userService.printAllUsers());
 
-        verify(userRepository).findAll();
+        verify(userRepository).findAllAsDto();
     }
 
     @Test
     void printAllUsers_EmptyList_ShouldNotThrowException() {
-        when(userRepository.findAll()).thenReturn(Collections.emptyList());
+        when(userRepository.findAllAsDto()).thenReturn(Collections.emptyList());
 
         assertDoesNotThrow(() -> userService.printAllUsers());
 
-        verify(userRepository).findAll();
+        verify(userRepository).findAllAsDto();
     }
 
     @Test
@@ -323,8 +792,7 @@ class UserServiceImplTest {
         assertThrows(ValidationException.class,
                 () -> userService.createUser(createRequest));
 
-        verify(userRepository, never()).existsByEmail(anyString());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertIfEmailAbsent(any(User.class));
     }
 
     @Test
@@ -334,8 +802,7 @@ class UserServiceImplTest {
         assertThrows(ValidationException.class,
                 () -> userService.createUser(createRequest));
 
-        verify(userRepository, never()).existsByEmail(anyString());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertIfEmailAbsent(any(User.class));
     }
 
     @Test
@@ -345,8 +812,7 @@ class UserServiceImplTest {
         assertThrows(ValidationException.class,
                 () -> userService.createUser(createRequest));
 
-        verify(userRepository, never()).existsByEmail(anyString());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertIfEmailAbsent(any(User.class));
     }
 
     @Test
@@ -356,13 +822,12 @@ class UserServiceImplTest {
         assertThrows(ValidationException.class,
                 () -> userService.createUser(createRequest));
 
-        verify(userRepository, never()).existsByEmail(anyString());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertIfEmailAbsent(any(User.class));
     }
 
     @Test
     void constructor_WithRepository_ShouldWork() {
-        UserServiceImpl service = new UserServiceImpl(userRepository);
+        UserServiceImpl service = new UserServiceImpl(userRepository, userEventOutbox, userCache, eventPublisher, emailFilter);
         assertNotNull(service);
     }
 
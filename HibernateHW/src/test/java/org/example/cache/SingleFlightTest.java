@@ -0,0 +1,105 @@
+package org.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_ConcurrentCallsForSameKey_ShouldRunLoaderOnce() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute(1, () -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "user1";
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 1; i < callers; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute(1, () -> {
+                    loads.incrementAndGet();
+                    return "duplicate";
+                })));
+            }
+            while (singleFlight.sharedCount() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            releaseLoader.countDown();
+
+            assertEquals("user1", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("user1", follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_LoaderFails_ShouldRethrowToWaitersAndReleaseKey() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute(1, () -> {
+                loaderStarted.countDown();
+                await(releaseLoader);
+                throw new IllegalStateException("нет пользователя");
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> singleFlight.execute(1, () -> "duplicate"));
+            while (singleFlight.sharedCount() < 1) {
+                Thread.onSpinWait();
+            }
+            releaseLoader.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertTrue(leaderError.getCause() instanceof IllegalStateException);
+            assertTrue(followerError.getCause() instanceof IllegalStateException);
+
+            // Следующий вызов после ошибки снова идёт в loader
+            assertEquals("retry", singleFlight.execute(1, () -> "retry"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_DifferentKeys_ShouldNotShareResult() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+
+        assertEquals("a", singleFlight.execute(1, () -> "a"));
+        assertEquals("b", singleFlight.execute(2, () -> "b"));
+        assertEquals(0, singleFlight.sharedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
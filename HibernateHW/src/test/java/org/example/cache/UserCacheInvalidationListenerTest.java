@@ -0,0 +1,44 @@
+package org.example.cache;
+
+import org.example.Entity.User;
+import org.example.event.UserDeleteEvent;
+import org.example.event.UserUpdateEvent;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.mockito.Mockito.*;
+
+class UserCacheInvalidationListenerTest {
+
+    private final UserCache userCache = mock(UserCache.class);
+    private final UserEmailBloomFilter emailFilter = mock(UserEmailBloomFilter.class);
+    private final Cache secondLevelCache = mock(Cache.class);
+
+    private UserCacheInvalidationListener listener() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        return new UserCacheInvalidationListener(userCache, emailFilter, entityManagerFactory);
+    }
+
+    @Test
+    void onUserUpdated_ShouldEvictSecondLevelCacheEntry() {
+        listener().onUserUpdated(new UserUpdateEvent(7, "new@test.com"));
+
+        verify(userCache).invalidate(7);
+        verify(secondLevelCache).evictEntityData(User.class, 7);
+        verify(emailFilter).add("new@test.com");
+    }
+
+    @Test
+    void onUserDeleted_ShouldEvictSecondLevelCacheEntry() {
+        listener().onUserDeleted(new UserDeleteEvent(7, "old@test.com"));
+
+        verify(userCache).invalidate(7);
+        verify(secondLevelCache).evictEntityData(User.class, 7);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.cache;
+
+import org.example.Dto.UserDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+
+    private static UserDto user(int id) {
+        return new UserDto(id, "user" + id, 30, "user" + id + "@test.com", Instant.parse("2024-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void get_AfterPut_ShouldReturnValueAndCountHit() {
+        UserCache cache = new UserCache(100, 60_000);
+        UserDto user = user(1);
+
+        cache.put(1, user);
+
+        assertSame(user, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    void getByEmail_ShouldFindByNormalizedEmailAndDropStalePointer() {
+        UserCache cache = new UserCache(100, 60_000);
+        cache.put(1, new UserDto(1, "user1", 30, "User1@Test.com", Instant.parse("2024-01-01T00:00:00Z")));
+
+        assertEquals(1, cache.getByEmail("user1@test.com").getId());
+        assertNull(cache.getByEmail("other@test.com"));
+
+        // email сменился: старый указатель больше не ведёт на запись
+        cache.put(1, new UserDto(1, "user1", 30, "renamed@test.com", Instant.parse("2024-01-01T00:00:00Z")));
+        assertNull(cache.getByEmail("user1@test.com"));
+        assertEquals(1, cache.getByEmail("renamed@test.com").getId());
+
+        cache.invalidate(1);
+        assertNull(cache.getByEmail("renamed@test.com"));
+    }
+
+    @Test
+    void invalidate_ShouldRemoveEntry() {
+        UserCache cache = new UserCache(100, 60_000);
+        cache.put(1, user(1));
+        cache.put(2, user(2));
+
+        cache.invalidate(1);
+
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void put_OverCapacity_ShouldEvictAndStayBounded() {
+        UserCache cache = new UserCache(16, 60_000);
+
+        for (int id = 0; id < 10_000; id++) {
+            cache.put(id, user(id));
+        }
+
+        assertTrue(cache.size() <= cache.stats().getMaxSize());
+        assertTrue(cache.stats().getEvictions() > 0);
+        assertEquals(cache.size() + cache.stats().getEvictions(), 10_000);
+    }
+
+    @Test
+    void get_ManyKeysAfterRemovals_ShouldKeepProbeChainsIntact() {
+        UserCache cache = new UserCache(4096, 60_000);
+        for (int id = 0; id < 4000; id++) {
+            cache.put(id, user(id));
+        }
+        for (int id = 0; id < 4000; id += 3) {
+            cache.invalidate(id);
+        }
+
+        for (int id = 0; id < 4000; id++) {
+            if (id % 3 == 0) {
+                assertNull(cache.get(id));
+            } else {
+                assertEquals(id, cache.get(id).getId());
+            }
+        }
+    }
+
+    @Test
+    void get_ExpiredEntry_ShouldMiss() throws InterruptedException {
+        UserCache cache = new UserCache(100, 1);
+        cache.put(1, user(1));
+
+        Thread.sleep(5);
+
+        assertNull(cache.get(1));
+        assertEquals(1, cache.stats().getExpirations());
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Dto.UserChangeDto;
+import org.example.Dto.UserDto;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserEmailBloomFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserEmailBloomFilter filter(long expectedInsertions) {
+        return new UserEmailBloomFilter(userRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                meterRegistry, true, expectedInsertions, 0.01);
+    }
+
+    @Test
+    void mightContain_BeforeBuild_ShouldAnswerMaybe() {
+        UserEmailBloomFilter filter = filter(1000);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("anyone@test.com"));
+    }
+
+    @Test
+    void rebuild_ShouldHaveNoFalseNegativesAndLowFalsePositiveRate() {
+        int users = 10_000;
+        when(userRepository.streamAllEmails())
+                .thenReturn(IntStream.range(0, users).mapToObj(i -> "User" + i + "@Test.com"));
+        UserEmailBloomFilter filter = filter(users);
+
+        filter.buildOnStartup();
+
+        assertTrue(filter.isReady());
+        for (int i = 0; i < users; i++) {
+            assertTrue(filter.mightContain("user" + i + "@test.com"));
+        }
+        long falsePositives = IntStream.range(0, users)
+                .filter(i -> filter.mightContain("absent" + i + "@test.com"))
+                .count();
+        assertTrue(falsePositives < users * 0.03, "ложных срабатываний: " + falsePositives);
+        assertEquals(users, meterRegistry.get("user.email-filter.insertions").gauge().value());
+    }
+
+    @Test
+    void add_AfterBuild_ShouldMakeEmailVisible() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+        UserEmailBloomFilter filter = filter(1000);
+        filter.buildOnStartup();
+        assertFalse(filter.mightContain("new@test.com"));
+
+        filter.onUserChange(new UserChangeDto(UserChangeDto.Type.CREATED, 1,
+                new UserDto(1, "New", 30, "New@Test.com", Instant.parse("2024-01-01T00:00:00Z"))));
+
+        assertTrue(filter.mightContain("new@test.com"));
+    }
+
+    @Test
+    void onUserChange_Batch_ShouldAddAllEmails() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+        UserEmailBloomFilter filter = filter(1000);
+        filter.buildOnStartup();
+
+        filter.onUserChange(new UserChangeDto(UserChangeDto.Type.CREATED, List.of(1, 2), List.of(
+                new UserDto(1, "A", 30, "a@test.com", Instant.parse("2024-01-01T00:00:00Z")),
+                new UserDto(2, "B", 30, "b@test.com", Instant.parse("2024-01-01T00:00:00Z")))));
+
+        assertTrue(filter.mightContain("a@test.com"));
+        assertTrue(filter.mightContain("b@test.com"));
+    }
+
+    @Test
+    void rebuild_Failure_ShouldKeepPreviousFilter() {
+        when(userRepository.streamAllEmails())
+                .thenReturn(Stream.of("kept@test.com"))
+                .thenThrow(new IllegalStateException("нет соединения"));
+        UserEmailBloomFilter filter = filter(1000);
+        filter.buildOnStartup();
+
+        filter.rebuild();
+
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContain("kept@test.com"));
+    }
+}
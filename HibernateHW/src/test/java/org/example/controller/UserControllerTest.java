@@ -1,29 +1,41 @@
 package org.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Dto.BulkDeleteResultDto;
 import org.example.Dto.CreateUserRequest;
 import org.example.Dto.UpdateUserRequest;
+import org.example.Dto.UserBatchDto;
 import org.example.Dto.UserDto;
+import org.example.Dto.UserPageDto;
+import org.example.Dto.UserSearchFilter;
+import org.example.Exception.UserVersionConflictException;
 import org.example.Service.UserService;
+import org.example.stream.UserChangeBroadcaster;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.hamcrest.Matchers.*;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -40,16 +52,16 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserChangeBroadcaster changeBroadcaster;
+
     private UserDto userDto;
     private CreateUserRequest createUserRequest;
     private UpdateUserRequest updateUserRequest;
-    private static final DateTimeFormatter DATE_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @BeforeEach
     void setUp() {
-        String createdAt = LocalDateTime.now().format(DATE_FORMATTER);
-        userDto = new UserDto(1, "Test User", 25, "test@example.com", createdAt);
+        userDto = new UserDto(1, "Test User", 25, "test@example.com", Instant.parse("2024-01-01T00:00:00Z"));
 
         createUserRequest = new CreateUserRequest("Test User", 25, "test@example.com");
         updateUserRequest = new UpdateUserRequest("Updated User", 30, "updated@example.com");
@@ -59,7 +71,7 @@ class UserControllerTest {
     void createUser_ValidRequest_ShouldReturnCreated() throws Exception {
         when(userService.createUser(any(CreateUserRequest.class))).thenReturn(userDto);
 
-        mockMvc.perform(post("/api/users")
+        mockMvc.perform(post("/users")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(createUserRequest)))
                 .andExpect(status().isCreated())
@@ -67,7 +79,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.name", is("Test User")))
                 .andExpect(jsonPath("$.age", is(25)))
                 .andExpect(jsonPath("$.email", is("test@example.com")))
-                .andExpect(jsonPath("$.createdAt", notNullValue()));
+                .andExpect(jsonPath("$.createdAt", is("2024-01-01 00:00:00")));
 
         verify(userService).createUser(any(CreateUserRequest.class));
     }
@@ -75,7 +87,7 @@ class UserControllerTest {
     void getUserById_ExistingUser_ShouldReturnOk() throws Exception {
         when(userService.getUserById(1)).thenReturn(userDto);
 
-        mockMvc.perform(get("/api/users/{id}", 1))
+        mockMvc.perform(get("/users/{id}", 1))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.name", is("Test User")))
@@ -86,43 +98,113 @@ class UserControllerTest {
     }
 
     @Test
-    void getAllUsers_ShouldReturnList() throws Exception {
+    void getAllUsers_ShouldReturnPage() throws Exception {
         UserDto userDto2 = new UserDto(2, "Test User2", 30, "test2@example.com",
-                LocalDateTime.now().format(DATE_FORMATTER));
-        List<UserDto> users = Arrays.asList(userDto, userDto2);
+                Instant.now());
+        UserPageDto page = new UserPageDto(Arrays.asList(userDto, userDto2), "next");
 
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getUsersPage(isNull(), eq(2), any(UserSearchFilter.class))).thenReturn(page);
 
-        mockMvc.perform(get("/api/users"))
+        mockMvc.perform(get("/users").param("limit", "2"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].name", is("Test User")))
-                .andExpect(jsonPath("$[1].id", is(2)))
-                .andExpect(jsonPath("$[1].name", is("Test User2")));
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Test User")))
+                .andExpect(jsonPath("$.items[1].id", is(2)))
+                .andExpect(jsonPath("$.items[1].name", is("Test User2")))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+
+        verify(userService).getUsersPage(isNull(), eq(2), any(UserSearchFilter.class));
+    }
 
-        verify(userService).getAllUsers();
+    @Test
+    void getAllUsers_WithCursorAndFilters_ShouldPassThemToService() throws Exception {
+        when(userService.getUsersPage(eq("abc"), eq(50), any(UserSearchFilter.class)))
+                .thenReturn(new UserPageDto(Arrays.asList(), null));
+
+        mockMvc.perform(get("/users")
+                        .param("cursor", "abc")
+                        .param("name", "test")
+                        .param("minAge", "18")
+                        .param("maxAge", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        ArgumentCaptor<UserSearchFilter> filterCaptor = ArgumentCaptor.forClass(UserSearchFilter.class);
+        verify(userService).getUsersPage(eq("abc"), eq(50), filterCaptor.capture());
+        assertEquals("test", filterCaptor.getValue().getName());
+        assertEquals(18, filterCaptor.getValue().getMinAge());
+        assertEquals(30, filterCaptor.getValue().getMaxAge());
     }
 
     @Test
-    void getAllUsers_EmptyList_ShouldReturnEmptyArray() throws Exception {
-        when(userService.getAllUsers()).thenReturn(Arrays.asList());
+    void getAllUsers_WithCreatedRange_ShouldParseInstants() throws Exception {
+        when(userService.getUsersPage(isNull(), eq(50), any(UserSearchFilter.class)))
+                .thenReturn(new UserPageDto(Arrays.asList(), null));
+
+        mockMvc.perform(get("/users")
+                        .param("createdFrom", "2024-01-01T00:00:00Z")
+                        .param("createdTo", "2024-02-01T00:00:00Z"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<UserSearchFilter> filterCaptor = ArgumentCaptor.forClass(UserSearchFilter.class);
+        verify(userService).getUsersPage(isNull(), eq(50), filterCaptor.capture());
+        assertEquals(Instant.parse("2024-01-01T00:00:00Z"), filterCaptor.getValue().getCreatedFrom());
+        assertEquals(Instant.parse("2024-02-01T00:00:00Z"), filterCaptor.getValue().getCreatedTo());
+    }
 
-        mockMvc.perform(get("/api/users"))
+    @Test
+    void streamChanges_ShouldOpenEventStream() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        when(changeBroadcaster.subscribe()).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(get("/users/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.complete();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(0)));
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+        verify(userService, never()).getUsersPage(any(), anyInt(), any());
+    }
 
-        verify(userService).getAllUsers();
+    @Test
+    void exportUsers_ShouldStreamNdjson() throws Exception {
+        UserDto userDto2 = new UserDto(2, "Test User2", 30, "test2@example.com",
+                Instant.now());
+        when(userService.exportUsers(any())).thenAnswer(invocation -> {
+            Consumer<UserDto> sink = invocation.getArgument(0);
+            sink.accept(userDto);
+            sink.accept(userDto2);
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1, objectMapper.readValue(lines[0], UserDto.class).getId());
+        assertEquals(2, objectMapper.readValue(lines[1], UserDto.class).getId());
+        assertTrue(body.endsWith("\n"));
     }
 
     @Test
     void updateUser_ValidRequest_ShouldReturnOk() throws Exception {
         UserDto updatedUser = new UserDto(1, "Updated User", 30, "updated@example.com",
-                LocalDateTime.now().format(DATE_FORMATTER));
+                Instant.now());
 
         when(userService.updateUser(eq(1), any(UpdateUserRequest.class))).thenReturn(updatedUser);
 
-        mockMvc.perform(put("/api/users/{id}", 1)
+        mockMvc.perform(put("/users/{id}", 1)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateUserRequest)))
                 .andExpect(status().isOk())
@@ -134,21 +216,102 @@ class UserControllerTest {
         verify(userService).updateUser(eq(1), any(UpdateUserRequest.class));
     }
 
+    @Test
+    void patchUser_WithIfMatch_ShouldReturnNewETag() throws Exception {
+        UserDto patchedUser = new UserDto(1, "Updated User", 30, "updated@example.com",
+                Instant.now());
+        patchedUser.setVersion(6L);
+        when(userService.patchUser(eq(1), eq(5L), any(UpdateUserRequest.class))).thenReturn(patchedUser);
+
+        mockMvc.perform(patch("/users/{id}", 1)
+                        .header("If-Match", "\"5\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateUserRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"6\""))
+                .andExpect(jsonPath("$.version", is(6)));
+    }
+
+    @Test
+    void patchUser_StaleVersion_ShouldReturnConflict() throws Exception {
+        when(userService.patchUser(eq(1), eq(5L), any(UpdateUserRequest.class)))
+                .thenThrow(new UserVersionConflictException(1, 5L));
+
+        mockMvc.perform(patch("/users/{id}", 1)
+                        .header("If-Match", "5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateUserRequest)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void deleteUser_ExistingUser_ShouldReturnNoContent() throws Exception {
         doNothing().when(userService).deleteUser(1);
 
-        mockMvc.perform(delete("/api/users/{id}", 1))
+        mockMvc.perform(delete("/users/{id}", 1))
                 .andExpect(status().isNoContent());
 
         verify(userService).deleteUser(1);
     }
 
+    @Test
+    void getUserByEmail_ShouldReturnUserWithETag() throws Exception {
+        UserDto user = new UserDto(1, "Test User", 25, "test@example.com", Instant.parse("2024-01-01T00:00:00Z"));
+        user.setVersion(3L);
+        when(userService.getUserByEmail("Test@Example.com")).thenReturn(user);
+
+        mockMvc.perform(get("/users/by-email").param("email", "Test@Example.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.email", is("test@example.com")));
+
+        verify(userService, never()).getUserById(anyInt());
+    }
+
+    @Test
+    void isEmailAvailable_ShouldReturnAvailability() throws Exception {
+        when(userService.isEmailAvailable("new@example.com")).thenReturn(true);
+
+        mockMvc.perform(get("/users/email-available").param("email", "new@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("new@example.com")))
+                .andExpect(jsonPath("$.available", is(true)));
+    }
+
+    @Test
+    void getUsersByIds_ShouldReturnFoundUsersAndMissingIds() throws Exception {
+        UserDto user = new UserDto(1, "Test User", 25, "test@example.com", Instant.parse("2024-01-01T00:00:00Z"));
+        when(userService.getUsersByIds(List.of(1, 2))).thenReturn(new UserBatchDto(List.of(user), List.of(2)));
+
+        mockMvc.perform(get("/users").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(1)))
+                .andExpect(jsonPath("$.users[0].id", is(1)))
+                .andExpect(jsonPath("$.notFound", contains(2)));
+
+        verify(userService, never()).getUsersPage(any(), anyInt(), any());
+    }
+
+    @Test
+    void deleteUsers_ShouldReturnPerIdOutcome() throws Exception {
+        when(userService.deleteUsers(List.of(1, 2, 3)))
+                .thenReturn(new BulkDeleteResultDto(List.of(1, 3), List.of(2)));
+
+        mockMvc.perform(delete("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted", contains(1, 3)))
+                .andExpect(jsonPath("$.notFound", contains(2)));
+
+        verify(userService).deleteUsers(List.of(1, 2, 3));
+    }
+
     @Test
     void updateUser_WithInvalidJson_ShouldReturnBadRequest() throws Exception {
         String invalidJson = "{invalid json";
 
-        mockMvc.perform(put("/api/users/{id}", 1)
+        mockMvc.perform(put("/users/{id}", 1)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(invalidJson))
                 .andExpect(status().isBadRequest());
@@ -158,13 +321,13 @@ class UserControllerTest {
 
     @Test
     void getUserById_WithInvalidIdFormat_ShouldReturnBadRequest() throws Exception {
-        mockMvc.perform(get("/api/users/{id}", "not-a-number"))
+        mockMvc.perform(get("/users/{id}", "not-a-number"))
                 .andExpect(status().isBadRequest());
     }
 
     @Test
     void updateUser_WithInvalidIdFormat_ShouldReturnBadRequest() throws Exception {
-        mockMvc.perform(put("/api/users/{id}", "not-a-number")
+        mockMvc.perform(put("/users/{id}", "not-a-number")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateUserRequest)))
                 .andExpect(status().isBadRequest());
@@ -172,7 +335,7 @@ class UserControllerTest {
 
     @Test
     void deleteUser_WithInvalidIdFormat_ShouldReturnBadRequest() throws Exception {
-        mockMvc.perform(delete("/api/users/{id}", "not-a-number"))
+        mockMvc.perform(delete("/users/{id}", "not-a-number"))
                 .andExpect(status().isBadRequest());
     }
 
@@ -180,7 +343,7 @@ class UserControllerTest {
     void createUser_WithNullValues_ShouldReturnBadRequest() throws Exception {
         CreateUserRequest requestWithNulls = new CreateUserRequest(null, 25, null);
 
-        mockMvc.perform(post("/api/users")
+        mockMvc.perform(post("/users")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(requestWithNulls)))
                 .andExpect(status().isBadRequest());
@@ -0,0 +1,89 @@
+package org.example.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserEventSerializerTest {
+
+    private final UserEventSerializer serializer = new UserEventSerializer();
+    private final UserEventDeserializer deserializer = new UserEventDeserializer();
+
+    @Test
+    void roundTrip_ShouldKeepTypeAndFields() {
+        UserCreateEvent created = (UserCreateEvent) deserializer.deserialize("t",
+                serializer.serialize("t", new UserCreateEvent(300, "иван@пример.рф")));
+        UserDeleteEvent deleted = (UserDeleteEvent) deserializer.deserialize("t",
+                serializer.serialize("t", new UserDeleteEvent(Integer.MAX_VALUE, null)));
+        UserUpdateEvent updated = (UserUpdateEvent) deserializer.deserialize("t",
+                serializer.serialize("t", new UserUpdateEvent(7, "a😀@test.com")));
+
+        assertEquals(300, created.getUserId());
+        assertEquals("иван@пример.рф", created.getUserEmail());
+        assertEquals(Integer.MAX_VALUE, deleted.getUserId());
+        assertNull(deleted.getUserEmail());
+        assertEquals("a😀@test.com", updated.getUserEmail());
+    }
+
+    @Test
+    void serialize_LongEmail_ShouldUseMultiByteLength() {
+        String email = "x".repeat(200) + "@test.com";
+
+        byte[] bytes = serializer.serialize("t", new UserCreateEvent(1, email));
+
+        assertEquals(3 + 1 + 2 + email.length(), bytes.length);
+        assertEquals(email, ((UserCreateEvent) deserializer.deserialize("t", bytes)).getUserEmail());
+    }
+
+    @Test
+    void roundTrip_UpdateDiffAndSnapshot_ShouldKeepOnlyPresentFields() {
+        UserUpdateEvent diff = (UserUpdateEvent) deserializer.deserialize("t",
+                serializer.serialize("t", new UserUpdateEvent(5, null, "Пётр", 0)));
+        UserSnapshot snapshot = (UserSnapshot) deserializer.deserialize("t",
+                serializer.serialize("t", new UserSnapshot(5, "Пётр", "petr@test.com", 41, "2024-01-01 00:00:00")));
+
+        assertNull(diff.getUserEmail());
+        assertEquals("Пётр", diff.getUserName());
+        assertEquals(0, diff.getUserAge());
+        assertEquals("petr@test.com", snapshot.getUserEmail());
+        assertEquals(41, snapshot.getUserAge());
+        assertEquals("2024-01-01 00:00:00", snapshot.getUserCreatedAt());
+        assertNull(serializer.serialize("t", null));
+    }
+
+    @Test
+    void deserialize_Version1Record_ShouldStillBeReadable() {
+        byte[] bytes = serializer.serialize("t", new UserDeleteEvent(9, "old@test.com"));
+        bytes[0] = 1;
+
+        assertEquals("old@test.com", ((UserDeleteEvent) deserializer.deserialize("t", bytes)).getUserEmail());
+    }
+
+    @Test
+    void deserialize_UnknownVersion_ShouldFail() {
+        byte[] bytes = serializer.serialize("t", new UserCreateEvent(1, "user@test.com"));
+        bytes[0] = UserEventSerializer.VERSION + 1;
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("t", bytes));
+    }
+
+    // Размер события постоянен, поэтому сравнение с прежним JsonSerializer - здесь, а не в JMH
+    @Test
+    void serialize_ShouldBeSmallerThanJsonWithTypeHeader() {
+        UserCreateEvent event = new UserCreateEvent(42, "bench@example.com");
+        RecordHeaders headers = new RecordHeaders();
+        int jsonBytes;
+        try (JsonSerializer<UserCreateEvent> jsonSerializer = new JsonSerializer<>()) {
+            jsonBytes = jsonSerializer.serialize("t", headers, event).length
+                    + headers.lastHeader("__TypeId__").value().length;
+        }
+
+        int binaryBytes = serializer.serialize("t", event).length;
+
+        assertEquals(78, jsonBytes);
+        assertEquals(22, binaryBytes);
+    }
+}
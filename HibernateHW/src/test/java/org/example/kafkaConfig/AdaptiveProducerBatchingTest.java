@@ -0,0 +1,64 @@
+package org.example.kafkaConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AdaptiveProducerBatchingTest {
+
+    @SuppressWarnings("unchecked")
+    private final DefaultKafkaProducerFactory<String, Object> producerFactory = mock(DefaultKafkaProducerFactory.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AdaptiveProducerBatching batching() {
+        return new AdaptiveProducerBatching(producerFactory, kafkaTemplate, registry,
+                true, 1000, 200, 1, 20, 262144, "lz4");
+    }
+
+    @Test
+    void adjust_HighRate_ShouldFlushAndRecreateProducerWithBatching() throws Exception {
+        AdaptiveProducerBatching batching = batching();
+        clearInvocations(producerFactory);
+
+        batching.record(1_000_000);
+        Thread.sleep(5);
+        batching.adjust();
+
+        assertEquals(AdaptiveProducerBatching.Mode.THROUGHPUT, batching.getMode());
+        verify(kafkaTemplate).flush();
+        verify(producerFactory).updateConfigs(argThat((Map<String, Object> config) ->
+                "lz4".equals(config.get(ProducerConfig.COMPRESSION_TYPE_CONFIG))
+                        && Integer.valueOf(20).equals(config.get(ProducerConfig.LINGER_MS_CONFIG))));
+        verify(producerFactory).reset();
+        assertEquals(1, registry.get("user.events.kafka.producer.mode").gauge().value());
+    }
+
+    @Test
+    void adjust_RateBetweenThresholds_ShouldKeepMode() throws Exception {
+        AdaptiveProducerBatching batching = batching();
+        batching.record(1_000_000);
+        Thread.sleep(5);
+        batching.adjust();
+        clearInvocations(producerFactory, kafkaTemplate);
+
+        Thread.sleep(1000);
+        batching.record(500);
+        batching.adjust();
+        assertEquals(AdaptiveProducerBatching.Mode.THROUGHPUT, batching.getMode());
+
+        Thread.sleep(50);
+        batching.adjust();
+        assertEquals(AdaptiveProducerBatching.Mode.LOW_LATENCY, batching.getMode());
+        verify(producerFactory, times(1)).reset();
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Exception.UserNotFoundException;
+import org.example.Service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserServiceMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private UserService proxy(UserService target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new UserServiceMetrics(registry));
+        return factory.getProxy();
+    }
+
+    @Test
+    void call_ShouldRecordTimerPerMethod() {
+        UserService service = proxy(mock(UserService.class));
+
+        service.getAllUsers();
+        service.getAllUsers();
+
+        assertEquals(2, registry.get("user.service")
+                .tags("method", "getAllUsers", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void call_WhenUserNotFound_ShouldCountError() {
+        UserService target = mock(UserService.class);
+        when(target.getUserById(1)).thenThrow(new UserNotFoundException(1));
+        UserService service = proxy(target);
+
+        assertThrows(UserNotFoundException.class, () -> service.getUserById(1));
+
+        assertEquals(1, registry.get("user.service.errors")
+                .tags("method", "getUserById", "exception", "UserNotFoundException").counter().count());
+        assertEquals(1, registry.get("user.service")
+                .tags("method", "getUserById", "outcome", "UserNotFoundException").timer().count());
+    }
+}
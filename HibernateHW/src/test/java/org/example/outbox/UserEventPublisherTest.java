@@ -0,0 +1,50 @@
+package org.example.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserEventPublisherTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @Test
+    void publish_ShouldNotWaitForBrokerAck() {
+        SettableListenableFuture<SendResult<String, Object>> ack = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(ack);
+        UserEventPublisher publisher = new UserEventPublisher(kafkaTemplate, new SimpleMeterRegistry(), 2, 0);
+
+        CompletableFuture<SendResult<String, Object>> result = publisher.publish("topic", "1", "event");
+
+        assertFalse(result.isDone());
+        assertEquals(1, publisher.inFlightCount());
+        ack.set(null);
+        assertTrue(result.isDone());
+        assertEquals(0, publisher.inFlightCount());
+    }
+
+    @Test
+    void publish_WhenWindowFull_ShouldRejectUntilAcked() {
+        SettableListenableFuture<SendResult<String, Object>> first = new SettableListenableFuture<>();
+        SettableListenableFuture<SendResult<String, Object>> second = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(first, second);
+        UserEventPublisher publisher = new UserEventPublisher(kafkaTemplate, new SimpleMeterRegistry(), 1, 0);
+
+        publisher.publish("topic", "1", "event");
+        assertThrows(RejectedExecutionException.class, () -> publisher.publish("topic", "2", "event"));
+
+        first.setException(new IllegalStateException("broker down"));
+        assertDoesNotThrow(() -> publisher.publish("topic", "2", "event"));
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any());
+    }
+}
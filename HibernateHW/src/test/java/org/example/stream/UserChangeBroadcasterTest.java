@@ -0,0 +1,110 @@
+package org.example.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Dto.UserChangeDto;
+import org.example.Dto.UserDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class UserChangeBroadcasterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private static UserChangeDto change(int id) {
+        return new UserChangeDto(UserChangeDto.Type.UPDATED, id,
+                new UserDto(id, "user" + id, 30, "user" + id + "@test.com", Instant.parse("2024-01-01T00:00:00Z")));
+    }
+
+    @Test
+    void onUserChange_ShouldDeliverToSubscriber() {
+        UserChangeBroadcaster broadcaster = new UserChangeBroadcaster(objectMapper, registry, 4, 60_000, Runnable::run);
+        broadcaster.subscribe();
+
+        broadcaster.onUserChange(change(1));
+        broadcaster.onUserChange(change(2));
+
+        assertEquals(1, broadcaster.subscriberCount());
+        assertEquals(0, registry.counter("user.changes.overflows").count());
+    }
+
+    @Test
+    void onUserChange_ShouldWriteSameWellFormedFrameToEverySubscriber() throws Exception {
+        UserChangeBroadcaster broadcaster = new UserChangeBroadcaster(objectMapper, registry, 4, 60_000, Runnable::run);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(broadcaster)).build();
+        MvcResult first = mockMvc.perform(get("/changes")).andExpect(request().asyncStarted()).andReturn();
+        MvcResult second = mockMvc.perform(get("/changes")).andExpect(request().asyncStarted()).andReturn();
+
+        broadcaster.onUserChange(change(1));
+        broadcaster.heartbeat();
+
+        String expected = "id:1\nevent:updated\ndata:" + objectMapper.writeValueAsString(change(1)) + "\n\n"
+                + ":ping\n\n";
+        assertEquals(expected, first.getResponse().getContentAsString());
+        assertEquals(expected, second.getResponse().getContentAsString());
+    }
+
+    @Test
+    void onUserChange_BatchLargerThanBuffer_ShouldTakeOneSlot() {
+        List<Runnable> pending = new ArrayList<>();
+        UserChangeBroadcaster broadcaster = new UserChangeBroadcaster(objectMapper, registry, 2, 60_000, pending::add);
+        broadcaster.subscribe();
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < 1000; id++) {
+            ids.add(id);
+        }
+
+        broadcaster.onUserChange(new UserChangeDto(UserChangeDto.Type.DELETED, ids, null));
+
+        assertEquals(1, broadcaster.subscriberCount());
+        assertEquals(0, registry.counter("user.changes.overflows").count());
+    }
+
+    @Test
+    void onUserChange_SlowSubscriberOverflow_ShouldDisconnectOnlyIt() {
+        List<Runnable> pending = new ArrayList<>();
+        UserChangeBroadcaster broadcaster = new UserChangeBroadcaster(objectMapper, registry, 2, 60_000, pending::add);
+        broadcaster.subscribe();
+
+        // отправка первому подписчику не выполняется - он "медленный"
+        for (int id = 0; id < 3; id++) {
+            broadcaster.onUserChange(change(id));
+        }
+
+        assertEquals(0, broadcaster.subscriberCount());
+        assertEquals(1, registry.counter("user.changes.overflows").count());
+
+        broadcaster.subscribe();
+        broadcaster.onUserChange(change(10));
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @RestController
+    static class StreamController {
+        private final UserChangeBroadcaster broadcaster;
+
+        StreamController(UserChangeBroadcaster broadcaster) {
+            this.broadcaster = broadcaster;
+        }
+
+        @GetMapping("/changes")
+        SseEmitter changes() {
+            return broadcaster.subscribe();
+        }
+    }
+}